@@ -0,0 +1,98 @@
+package io.blushine.android.ui.showcase;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per-frame cost of the animation interpolation. Animations are driven by a {@link
+ * VirtualAnimationClock} that advances one 60 Hz frame per invocation and wraps around before the
+ * animation ends, so every invocation measures a frame in the middle of an animation.
+ */
+@State(Scope.Thread)
+public class AnimationBenchmark {
+private static final long DURATION = 300;
+private static final long FRAME_TIME = 16;
+private static final int END_RADIUS = 1500;
+
+// CircularAnimation.Algorithm isn't accessible from the generated benchmark code
+@Param({"EASE_IN", "EASE_OUT", "EASE_IN_OUT"})
+public String algorithm;
+
+private final int[] mRadius = new int[1];
+private VirtualAnimationClock mClock;
+private RadiusAnimation mAnimation;
+private long mFrame = 0;
+private float mFrom = 0;
+private float mTo = END_RADIUS;
+
+@Setup(Level.Iteration)
+public void setUp() {
+	mClock = new VirtualAnimationClock();
+	mAnimation = new RadiusAnimation(DURATION, 0, END_RADIUS, CircularAnimation.Algorithm.valueOf(algorithm));
+	mAnimation.setClock(mClock);
+	mAnimation.start();
+
+	// Place the animation half way through for the interpolation benchmarks
+	mClock.setTimeMillis(DURATION / 2);
+	mAnimation.update(mRadius);
+}
+
+private void nextFrame() {
+	mFrame++;
+	mClock.setTimeMillis((mFrame * FRAME_TIME) % DURATION);
+}
+
+/**
+ * A full animation frame, i.e. {@link Animation#update(Object)} with a new frame time
+ */
+@Benchmark
+public int frameUpdate() {
+	nextFrame();
+	mAnimation.update(mRadius);
+	return mRadius[0];
+}
+
+@Benchmark
+public int currentRadius() {
+	return mAnimation.getCurrentRadius();
+}
+
+@Benchmark
+public float interpolationLinear() {
+	return mAnimation.interpolationLinear(mFrom, mTo);
+}
+
+@Benchmark
+public float interpolationEaseIn() {
+	return mAnimation.interpolationEaseIn(mFrom, mTo);
+}
+
+@Benchmark
+public float interpolationEaseOut() {
+	return mAnimation.interpolationEaseOut(mFrom, mTo);
+}
+
+@Benchmark
+public float interpolationEaseInOut() {
+	return mAnimation.interpolationEaseInOut(mFrom, mTo);
+}
+
+/**
+ * Animates a radius into an int array, i.e. the same work as {@link CircularShapeAnimation} without
+ * needing Android's graphics classes
+ */
+static class RadiusAnimation extends CircularAnimation<int[]> {
+	RadiusAnimation(long duration, int startRadius, int endRadius, Algorithm algorithm) {
+		super(duration, startRadius, endRadius, algorithm);
+	}
+
+	@Override
+	protected void onUpdate(int[] radius) {
+		radius[0] = getCurrentRadius();
+	}
+}
+}
@@ -0,0 +1,264 @@
+package io.blushine.android.ui.showcase;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per-frame cost of the showcase animations, i.e. the work {@code MaterialShowcaseView.onDraw()} does
+ * before it hands the shapes to the canvas: updating the target, background and alpha animations and,
+ * in BITMAP mode, calculating the frame bounds. Each invocation is one 60 Hz frame of a reveal,
+ * dismiss or target pressed animation driven by a {@link VirtualAnimationClock}, the animation
+ * restarts when it has ended. The score is the time per frame, bytes allocated per frame is {@code gc.alloc.rate.norm} of
+ * the gc profiler.
+ * <p>
+ * {@link #overdraw(FrameCounters)} also counts the pixels the overlay draws in each frame and reports
+ * them relative to the screen size, 1.0 is one full screen. Its score includes the counting, read it
+ * for the counter only. The canvas drawing itself needs Skia and isn't measured on the JVM.
+ */
+@State(Scope.Thread)
+public class FrameBenchmark {
+// Same as ShowcaseConfig, which can't be loaded on the JVM
+private static final long ANIMATION_TIME = 300;
+private static final int TARGET_RADIUS_DP = 44;
+private static final int TARGET_PADDING_DP = 60;
+private static final float PRESSED_SCALE = 1.4f;
+private static final long FRAME_TIME = 16;
+
+@Param({"720x1280", "1080x1920", "1440x2560"})
+public String screenSize;
+
+@Param({"REVEAL", "DISMISS", "TARGET_PRESSED"})
+public String animation;
+
+@Param({"DIRECT", "BITMAP"})
+public String renderMode;
+
+private int mWidth;
+private int mHeight;
+private boolean mBitmap;
+private int mTargetX;
+private int mTargetY;
+private int mBackgroundX;
+private int mBackgroundY;
+private AnimationBenchmark.RadiusAnimation mTargetAnimation;
+private AnimationBenchmark.RadiusAnimation mBackgroundAnimation;
+private ValueAnimation mAlphaAnimation;
+private VirtualAnimationClock mClock;
+private final int[] mTargetRadius = new int[1];
+private final int[] mBackgroundRadius = new int[1];
+private final float[] mAlpha = new float[1];
+// left, top, right, bottom
+private final int[] mDrawnBounds = new int[4];
+private final int[] mFrameBounds = new int[4];
+
+@Setup(Level.Iteration)
+public void setUp() {
+	String[] size = screenSize.split("x");
+	mWidth = Integer.parseInt(size[0]);
+	mHeight = Integer.parseInt(size[1]);
+	mBitmap = "BITMAP".equals(renderMode);
+	float density = mWidth / 360f;
+
+	// Target in the upper half with the content box below it, the background is centered on the box
+	int targetRadius = (int) (TARGET_RADIUS_DP * density);
+	mTargetX = mWidth * 3 / 4;
+	mTargetY = mHeight / 5;
+	int contentTop = mTargetY + targetRadius;
+	int contentBottom = contentTop + mHeight / 4;
+	mBackgroundX = mWidth / 2;
+	mBackgroundY = (contentTop + contentBottom) / 2;
+	int backgroundRadius = ShowcaseGeometry.backgroundRadius(mBackgroundX, mBackgroundY, 0, contentTop, mWidth, contentBottom, mTargetX, mTargetY, targetRadius + (int) (TARGET_PADDING_DP * density));
+
+	CircularAnimation.Algorithm algorithm = CircularAnimation.Algorithm.EASE_IN_OUT;
+	int targetFrom = targetRadius;
+	int targetTo = targetRadius;
+	int backgroundFrom = backgroundRadius;
+	int backgroundTo = backgroundRadius;
+	mAlphaAnimation = null;
+	switch (animation) {
+	case "REVEAL":
+		targetFrom = 0;
+		backgroundFrom = 0;
+		break;
+	case "DISMISS":
+		targetTo = 0;
+		backgroundTo = 0;
+		break;
+	case "TARGET_PRESSED":
+		algorithm = CircularAnimation.Algorithm.EASE_OUT;
+		targetTo = (int) (targetRadius * PRESSED_SCALE);
+		backgroundTo = (int) (backgroundRadius * PRESSED_SCALE);
+		mAlphaAnimation = new ValueAnimation(ANIMATION_TIME, 1, 0);
+		break;
+	default:
+		throw new IllegalArgumentException("Unknown animation: " + animation);
+	}
+
+	mClock = new VirtualAnimationClock();
+	mTargetAnimation = new AnimationBenchmark.RadiusAnimation(ANIMATION_TIME, targetFrom, targetTo, algorithm);
+	mBackgroundAnimation = new AnimationBenchmark.RadiusAnimation(ANIMATION_TIME, backgroundFrom, backgroundTo, algorithm);
+	mTargetAnimation.setClock(mClock);
+	mBackgroundAnimation.setClock(mClock);
+	if (mAlphaAnimation != null) {
+		mAlphaAnimation.setClock(mClock);
+	}
+	restart();
+}
+
+private void restart() {
+	mClock.setTimeMillis(0);
+	mTargetAnimation.start();
+	mBackgroundAnimation.start();
+	if (mAlphaAnimation != null) {
+		mAlphaAnimation.start();
+	}
+	mDrawnBounds[0] = mBackgroundX;
+	mDrawnBounds[1] = mBackgroundY;
+	mDrawnBounds[2] = mBackgroundX;
+	mDrawnBounds[3] = mBackgroundY;
+}
+
+/**
+ * One frame of the animation
+ */
+@Benchmark
+public int frame() {
+	mClock.advance(FRAME_TIME);
+	if (mClock.getTimeMillis() > ANIMATION_TIME) {
+		restart();
+	}
+
+	// Same order as MaterialShowcaseView.updateAnimations()
+	mTargetAnimation.update(mTargetRadius);
+	mBackgroundAnimation.update(mBackgroundRadius);
+	if (mAlphaAnimation != null) {
+		mAlphaAnimation.update(mAlpha);
+	}
+
+	int radius = mBackgroundRadius[0];
+	if (!mBitmap) {
+		return mTargetRadius[0] + radius;
+	}
+
+	// MaterialShowcaseView.updateFrameBounds(), only used in BITMAP mode: the area covered by the
+	// background in the previous and this frame
+	mFrameBounds[0] = Math.min(mDrawnBounds[0], mBackgroundX - radius);
+	mFrameBounds[1] = Math.min(mDrawnBounds[1], mBackgroundY - radius);
+	mFrameBounds[2] = Math.max(mDrawnBounds[2], mBackgroundX + radius);
+	mFrameBounds[3] = Math.max(mDrawnBounds[3], mBackgroundY + radius);
+	mDrawnBounds[0] = mBackgroundX - radius;
+	mDrawnBounds[1] = mBackgroundY - radius;
+	mDrawnBounds[2] = mBackgroundX + radius;
+	mDrawnBounds[3] = mBackgroundY + radius;
+	return mTargetRadius[0] + radius;
+}
+
+/**
+ * One frame of the animation and the number of pixels the overlay draws in it
+ * @param counters the drawn pixels are added to this
+ */
+@Benchmark
+public int overdraw(FrameCounters counters) {
+	int result = frame();
+
+	long backgroundPixels = circlePixels(mBackgroundX, mBackgroundY, mBackgroundRadius[0]);
+	long targetPixels = circlePixels(mTargetX, mTargetY, mTargetRadius[0]);
+	long pixels;
+	if (mBitmap) {
+		// Clear the frame bounds in the bitmap, draw the background, erase the target, and draw the frame
+		// bounds of the bitmap on the view's canvas. Uploading the whole bitmap as a texture isn't counted.
+		long framePixels = rectPixels(mFrameBounds);
+		pixels = framePixels + backgroundPixels + targetPixels + framePixels;
+	} else {
+		// The background with the target cut out as one path
+		pixels = Math.max(backgroundPixels - targetPixels, 0);
+	}
+
+	counters.frames++;
+	counters.screenPixels += (long) mWidth * mHeight;
+	counters.pixels += pixels;
+	return result;
+}
+
+/**
+ * @return number of pixels on the screen that the rectangle covers
+ */
+private long rectPixels(int[] bounds) {
+	long width = Math.min(bounds[2], mWidth) - Math.max(bounds[0], 0);
+	long height = Math.min(bounds[3], mHeight) - Math.max(bounds[1], 0);
+	return width > 0 && height > 0 ? width * height : 0;
+}
+
+/**
+ * @return number of pixels on the screen whose center is inside the circle
+ */
+private long circlePixels(int centerX, int centerY, int radius) {
+	long pixels = 0;
+	long radiusSq = (long) radius * radius;
+	int top = Math.max(centerY - radius, 0);
+	int bottom = Math.min(centerY + radius, mHeight - 1);
+	for (int y = top; y <= bottom; y++) {
+		double diffY = y + 0.5 - centerY;
+		double remaining = radiusSq - diffY * diffY;
+		if (remaining < 0) {
+			continue;
+		}
+		double halfWidth = Math.sqrt(remaining);
+		int left = Math.max((int) Math.ceil(centerX - halfWidth - 0.5), 0);
+		int right = Math.min((int) Math.floor(centerX + halfWidth - 0.5), mWidth - 1);
+		if (right >= left) {
+			pixels += right - left + 1;
+		}
+	}
+	return pixels;
+}
+
+/**
+ * Pixels drawn by the overlay, reported per iteration
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public static class FrameCounters {
+	public long frames;
+	public long pixels;
+	public long screenPixels;
+
+	@Setup(Level.Iteration)
+	public void clear() {
+		frames = 0;
+		pixels = 0;
+		screenPixels = 0;
+	}
+
+	/**
+	 * @return average pixels drawn by the overlay per frame, relative to the screen size
+	 */
+	public double overdrawPerFrame() {
+		return screenPixels > 0 ? (double) pixels / screenPixels : 0;
+	}
+}
+
+/**
+ * Animates a float, i.e. the same work as the library's AlphaAnimation without needing a view
+ */
+static class ValueAnimation extends Animation<float[]> {
+	private final float mFrom;
+	private final float mTo;
+
+	ValueAnimation(long duration, float from, float to) {
+		super(duration);
+		mFrom = from;
+		mTo = to;
+	}
+
+	@Override
+	protected void onUpdate(float[] alpha) {
+		alpha[0] = getRemainingTime() > 0 ? interpolationLinear(mFrom, mTo) : mTo;
+	}
+}
+}
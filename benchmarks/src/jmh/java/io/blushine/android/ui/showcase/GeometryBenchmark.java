@@ -0,0 +1,73 @@
+package io.blushine.android.ui.showcase;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Cost of the background radius calculation done on every layout and of the circle hit testing done
+ * on every touch. Inputs are precalculated random points on the screen.
+ */
+@State(Scope.Thread)
+public class GeometryBenchmark {
+private static final int POINT_COUNT = 1024;
+private static final int TARGET_RADIUS = 150;
+
+@Param({"720x1280", "1080x1920", "1440x2560", "1440x3200"})
+public String screenSize;
+
+private int mWidth;
+private int mHeight;
+private final int[] mX = new int[POINT_COUNT];
+private final int[] mY = new int[POINT_COUNT];
+private int mIndex = 0;
+
+@Setup
+public void setUp() {
+	String[] size = screenSize.split("x");
+	mWidth = Integer.parseInt(size[0]);
+	mHeight = Integer.parseInt(size[1]);
+
+	Random random = new Random(42);
+	for (int i = 0; i < POINT_COUNT; i++) {
+		mX[i] = random.nextInt(mWidth);
+		mY[i] = random.nextInt(mHeight);
+	}
+}
+
+private int nextIndex() {
+	mIndex = (mIndex + 1) & (POINT_COUNT - 1);
+	return mIndex;
+}
+
+/**
+ * Background radius around a target in the upper half with the content box below it
+ */
+@Benchmark
+public int backgroundRadius() {
+	int i = nextIndex();
+	int targetX = mX[i];
+	int targetY = mY[i] / 2;
+	int top = targetY + TARGET_RADIUS;
+	int bottom = top + mHeight / 4;
+	return ShowcaseGeometry.backgroundRadius(mWidth / 2, (top + bottom) / 2, 0, top, mWidth, bottom, targetX, targetY, TARGET_RADIUS);
+}
+
+@Benchmark
+public int fullscreenRadius() {
+	return ShowcaseGeometry.fullscreenRadius(mWidth, mHeight);
+}
+
+/**
+ * Touch hit test against the target circle
+ */
+@Benchmark
+public boolean hitTest() {
+	int i = nextIndex();
+	return ShowcaseGeometry.isInsideCircle(mWidth / 2, mHeight / 2, TARGET_RADIUS * TARGET_RADIUS, mX[i], mY[i]);
+}
+}
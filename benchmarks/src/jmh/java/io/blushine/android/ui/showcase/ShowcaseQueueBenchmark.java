@@ -0,0 +1,102 @@
+package io.blushine.android.ui.showcase;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Stress test of the display queue. Every invocation queues {@link #size} showcases and drains the
+ * queue, so the time per invocation should grow as n log n. A tenth of the showcases share their id
+ * with another showcase and are merged. Inputs are precalculated.
+ */
+@State(Scope.Thread)
+public class ShowcaseQueueBenchmark {
+private static final int PRIORITIES = 4;
+private static final long NOW = 1000;
+
+@Param({"1000", "10000", "100000"})
+public int size;
+
+private String[] mIds;
+private int[] mPriorities;
+private long[] mDeadlines;
+private Object[] mItems;
+private final List<Object> mExpired = new ArrayList<>();
+private ShowcaseQueue.Entry<?>[] mEntries;
+
+@Setup
+public void setUp() {
+	Random random = new Random(42);
+	mIds = new String[size];
+	mPriorities = new int[size];
+	mDeadlines = new long[size];
+	mItems = new Object[size];
+	mEntries = new ShowcaseQueue.Entry<?>[size];
+	for (int i = 0; i < size; i++) {
+		mIds[i] = "showcase/" + (random.nextInt(10) == 0 ? random.nextInt(size) : i);
+		mPriorities[i] = random.nextInt(PRIORITIES);
+		// Half of the showcases have passed their deadline when polled
+		mDeadlines[i] = random.nextBoolean() ? NOW - 1 : ShowcaseQueue.NO_DEADLINE;
+		mItems[i] = new Object();
+	}
+}
+
+/**
+ * Queue all showcases and poll them in priority order
+ */
+@Benchmark
+public int addAndPoll() {
+	ShowcaseQueue<Object> queue = new ShowcaseQueue<>();
+	for (int i = 0; i < size; i++) {
+		queue.add(mItems[i], mIds[i], mPriorities[i], ShowcaseQueue.NO_DEADLINE);
+	}
+	return drain(queue);
+}
+
+/**
+ * Queue all showcases, cancel every other one by its handle, and poll the rest
+ */
+@Benchmark
+public int addCancelAndPoll() {
+	ShowcaseQueue<Object> queue = new ShowcaseQueue<>();
+	for (int i = 0; i < size; i++) {
+		mEntries[i] = queue.add(mItems[i], mIds[i], mPriorities[i], ShowcaseQueue.NO_DEADLINE);
+	}
+	for (int i = 0; i < size; i += 2) {
+		cancel(queue, mEntries[i]);
+	}
+	return drain(queue);
+}
+
+/**
+ * Queue all showcases where half of them have passed their deadline when polled
+ */
+@Benchmark
+public int addAndExpire() {
+	ShowcaseQueue<Object> queue = new ShowcaseQueue<>();
+	for (int i = 0; i < size; i++) {
+		queue.add(mItems[i], mIds[i], mPriorities[i], mDeadlines[i]);
+	}
+	return drain(queue);
+}
+
+@SuppressWarnings("unchecked")
+private static void cancel(ShowcaseQueue<Object> queue, ShowcaseQueue.Entry<?> entry) {
+	queue.cancel((ShowcaseQueue.Entry<Object>) entry);
+}
+
+private int drain(ShowcaseQueue<Object> queue) {
+	int polled = 0;
+	while (queue.poll(NOW, mExpired) != null) {
+		polled++;
+	}
+	mExpired.clear();
+	return polled;
+}
+}
@@ -9,6 +9,8 @@ private long mStartTime = 0;
 private long mDuration = -1;
 private boolean mDone = false;
 private long mCurrentTime = 0;
+private boolean mStarted = false;
+private AnimationClock mClock = AnimationClock.SYSTEM;
 
 protected Animation() {
 
@@ -38,18 +40,26 @@ public void setDuration(long duration) {
 	mDuration = duration;
 }
 
+/**
+ * Set the clock the animation is driven by. Defaults to {@link AnimationClock#SYSTEM}
+ * @param clock the time source of the animation
+ */
+public void setClock(AnimationClock clock) {
+	mClock = clock;
+}
+
 /**
  * Call this to update the animation
  * @param animationObject the object to animate
  * @return true if the animation has been completed
  */
 public final boolean update(AnimationObject animationObject) {
-	if (mStartTime == 0) {
+	if (!mStarted) {
 		start();
 	}
-	mCurrentTime = System.currentTimeMillis();
+	mCurrentTime = mClock.getTimeMillis();
 	onUpdate(animationObject);
-	if (!mDone && mStartTime != 0 && getRemainingTime() == 0) {
+	if (!mDone && getRemainingTime() == 0) {
 		mDone = true;
 		onEnd();
 	}
@@ -60,7 +70,9 @@ public final boolean update(AnimationObject animationObject) {
  * Start the animation
  */
 public void start() {
-	mStartTime = System.currentTimeMillis();
+	mStartTime = mClock.getTimeMillis();
+	mCurrentTime = mStartTime;
+	mStarted = true;
 	onStart();
 }
 
@@ -112,7 +124,11 @@ protected float interpolationLinear(float from, float to) {
  * @return how long through an animation we have progressed, in the range [0.0; 1.0]
  */
 public float getElapsedFraction() {
-	return ((float) getElapsedTime()) / ((float) mDuration);
+	if (mDuration <= 0) {
+		return 1;
+	}
+	float fraction = ((float) getElapsedTime()) / ((float) mDuration);
+	return Math.max(0, Math.min(fraction, 1));
 }
 
 /**
@@ -0,0 +1,23 @@
+package io.blushine.android.ui.showcase;
+
+/**
+ * Time source for animations. Makes it possible to drive animations from frame times, or from a
+ * virtual time in tests and benchmarks.
+ */
+interface AnimationClock {
+/**
+ * Monotonic clock that isn't aligned to frames
+ */
+AnimationClock SYSTEM = new AnimationClock() {
+	@Override
+	public long getTimeMillis() {
+		return System.nanoTime() / 1000000;
+	}
+};
+
+/**
+ * Get the current animation time. Only the difference between two values is meaningful.
+ * @return current animation time in milliseconds
+ */
+long getTimeMillis();
+}
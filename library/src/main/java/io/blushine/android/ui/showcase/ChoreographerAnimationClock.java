@@ -0,0 +1,52 @@
+package io.blushine.android.ui.showcase;
+
+import android.view.Choreographer;
+
+/**
+ * Animation clock that uses the vsync aligned frame times from {@link Choreographer}. All animations
+ * that are updated in the same frame get the same time.
+ */
+class ChoreographerAnimationClock implements AnimationClock, Choreographer.FrameCallback {
+private static final long NO_FRAME = -1;
+private long mFrameTimeNanos = NO_FRAME;
+private boolean mRunning = false;
+
+@Override
+public long getTimeMillis() {
+	// Not received a frame yet, use the same time base as Choreographer
+	if (mFrameTimeNanos == NO_FRAME) {
+		return System.nanoTime() / 1000000;
+	}
+	return mFrameTimeNanos / 1000000;
+}
+
+/**
+ * Start listening to frame times. Has to be called on a thread with a looper, usually the main
+ * thread.
+ */
+void start() {
+	if (!mRunning) {
+		mRunning = true;
+		mFrameTimeNanos = NO_FRAME;
+		Choreographer.getInstance().postFrameCallback(this);
+	}
+}
+
+/**
+ * Stop listening to frame times
+ */
+void stop() {
+	if (mRunning) {
+		mRunning = false;
+		Choreographer.getInstance().removeFrameCallback(this);
+	}
+}
+
+@Override
+public void doFrame(long frameTimeNanos) {
+	if (mRunning) {
+		mFrameTimeNanos = frameTimeNanos;
+		Choreographer.getInstance().postFrameCallback(this);
+	}
+}
+}
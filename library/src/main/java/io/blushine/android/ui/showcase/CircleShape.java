@@ -2,7 +2,9 @@ package io.blushine.android.ui.showcase;
 
 import android.graphics.Canvas;
 import android.graphics.Paint;
+import android.graphics.Path;
 import android.graphics.Point;
+import android.graphics.Rect;
 
 import io.blushine.android.ui.showcase.target.Target;
 
@@ -12,6 +14,9 @@ import io.blushine.android.ui.showcase.target.Target;
 class CircleShape {
 private int mRadius = 0;
 private Point mPoint = null;
+private final Point mCurrentPoint = new Point();
+private final Point mOverridePoint = new Point();
+private boolean mPointOverridden = false;
 private Target mTarget = null;
 
 CircleShape() {
@@ -46,14 +51,84 @@ public void draw(Canvas canvas, Paint paint) {
 	}
 }
 
+/**
+ * Add this circle to a path
+ * @param path the path to add the circle to
+ * @return true if a circle was added, false if the shape has no size or position
+ */
+public boolean addToPath(Path path) {
+	if (mRadius > 0) {
+		Point point = getPoint();
+		if (point != null) {
+			path.addCircle(point.x, point.y, mRadius, Path.Direction.CW);
+			return true;
+		}
+	}
+	return false;
+}
+
+/**
+ * Get the bounds of this circle, including a pixel for anti-aliasing
+ * @param bounds set to the bounds of the circle, or empty if the shape has no size or position
+ */
+public void getBounds(Rect bounds) {
+	if (mRadius > 0) {
+		Point point = getPoint();
+		if (point != null) {
+			int radius = mRadius + 1;
+			bounds.set(point.x - radius, point.y - radius, point.x + radius, point.y + radius);
+			return;
+		}
+	}
+	bounds.setEmpty();
+}
+
+/**
+ * Get the center of the circle. Doesn't allocate, the returned point is reused and only valid until
+ * the next call.
+ * @return center of the circle, null if it has neither a target nor a point
+ */
 public Point getPoint() {
-	return mTarget != null ? mTarget.getPoint() : mPoint;
+	if (mPointOverridden) {
+		return mOverridePoint;
+	}
+	return getTargetPoint();
+}
+
+/**
+ * Get the center of the target or point, ignoring any override. Doesn't allocate, the returned point
+ * is reused and only valid until the next call.
+ * @return center of the target or point, null if it has neither a target nor a point
+ */
+public Point getTargetPoint() {
+	if (mTarget != null) {
+		mTarget.getPoint(mCurrentPoint);
+		return mCurrentPoint;
+	}
+	return mPoint;
 }
 
 public void setPoint(Point point) {
 	mPoint = point;
 }
 
+/**
+ * Temporarily draw the circle at another position than its target, e.g. while morphing
+ * @param x x-coordinate of the center
+ * @param y y-coordinate of the center
+ */
+public void setPointOverride(int x, int y) {
+	mOverridePoint.set(x, y);
+	mPointOverridden = true;
+}
+
+/**
+ * Draw the circle at its target's position again
+ */
+public void clearPointOverride() {
+	mPointOverridden = false;
+}
+
 public int getWidth() {
 	return mRadius * 2;
 }
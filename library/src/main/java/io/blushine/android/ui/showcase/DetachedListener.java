@@ -3,4 +3,12 @@ package io.blushine.android.ui.showcase;
 
 interface DetachedListener {
 void onShowcaseDetached(MaterialShowcaseView showcaseView, boolean wasDismissed);
+
+/**
+ * Called when a sequence host is dismissed. Gives the sequence the possibility to morph the showcase
+ * directly into the next step instead of dismissing it.
+ * @param showcaseView the showcase that is being dismissed
+ * @return true if the showcase is morphing into the next step, false to dismiss it
+ */
+boolean onShowcaseMorphRequested(MaterialShowcaseView showcaseView);
 }
@@ -0,0 +1,93 @@
+package io.blushine.android.ui.showcase;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.view.Choreographer;
+
+/**
+ * Runs an action the first time the main thread is idle after the next frame has been drawn, or
+ * after a maximum wait if the main thread doesn't become idle before that. Must be used on the main
+ * thread.
+ */
+final class IdleStarter implements Choreographer.FrameCallback, MessageQueue.IdleHandler {
+private final Handler mHandler;
+private final Runnable mAction;
+private final long mMaxWaitMillis;
+private boolean mStarted = false;
+private boolean mDone = false;
+private final Runnable mAfterFrame = new Runnable() {
+	@Override
+	public void run() {
+		// The frame has been committed, wait for the first time the looper is idle
+		Looper.myQueue().addIdleHandler(IdleStarter.this);
+	}
+};
+private final Runnable mTimeout = new Runnable() {
+	@Override
+	public void run() {
+		fire();
+	}
+};
+
+/**
+ * @param handler handler of the main thread
+ * @param action the action to run
+ * @param maxWaitMillis maximum time to wait for the main thread to be idle
+ */
+IdleStarter(Handler handler, Runnable action, long maxWaitMillis) {
+	mHandler = handler;
+	mAction = action;
+	mMaxWaitMillis = maxWaitMillis;
+}
+
+/**
+ * Start waiting for the main thread to be idle
+ */
+void start() {
+	if (mStarted) {
+		return;
+	}
+	mStarted = true;
+	mHandler.postDelayed(mTimeout, mMaxWaitMillis);
+	Choreographer.getInstance().postFrameCallback(this);
+}
+
+/**
+ * Stop waiting, the action won't be run
+ */
+void cancel() {
+	mDone = true;
+	removeCallbacks();
+}
+
+@Override
+public void doFrame(long frameTimeNanos) {
+	// Runs before the frame is drawn, post to run after the traversal
+	if (!mDone) {
+		mHandler.post(mAfterFrame);
+	}
+}
+
+@Override
+public boolean queueIdle() {
+	fire();
+	return false;
+}
+
+private void fire() {
+	if (mDone) {
+		return;
+	}
+	mDone = true;
+	removeCallbacks();
+	mAction.run();
+}
+
+private void removeCallbacks() {
+	mHandler.removeCallbacks(mTimeout);
+	mHandler.removeCallbacks(mAfterFrame);
+	Choreographer.getInstance().removeFrameCallback(this);
+	Looper.myQueue().removeIdleHandler(this);
+}
+}
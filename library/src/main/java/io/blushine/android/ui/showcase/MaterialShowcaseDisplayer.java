@@ -1,40 +1,175 @@
 package io.blushine.android.ui.showcase;
 
-import java.util.ArrayDeque;
-import java.util.Queue;
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 /**
- * Displays / Shows material showNow cases in order so that two can't be visible at the same time
+ * Displays / Shows material showNow cases in order so that two can't be visible at the same time in
+ * the same activity. Showcases are shown by priority and then in the order they were enqueued. There
+ * is one displayer per activity, it's dropped when the activity is destroyed and its queued showcases
+ * are told that they won't be shown.
  */
 class MaterialShowcaseDisplayer {
-private static MaterialShowcaseDisplayer mInstance = null;
+private static final Map<Activity, MaterialShowcaseDisplayer> mDisplayers = new HashMap<>();
+private static final OverlayBufferPool mBufferPool = new OverlayBufferPool();
+private static final LifecycleCallbacks mLifecycleCallbacks = new LifecycleCallbacks();
+private static Application mApplication = null;
 private MaterialShowcase mCurrentShowcase = null;
-private Queue<MaterialShowcase> mShowcaseQueue = new ArrayDeque<>();
+private String mCurrentShowcaseId = null;
+private final ShowcaseQueue<MaterialShowcase> mShowcaseQueue = new ShowcaseQueue<>();
+private final Map<MaterialShowcase, ShowcaseQueue.Entry<MaterialShowcase>> mQueuedEntries = new IdentityHashMap<>();
+private final List<MaterialShowcase> mExpiredShowcases = new ArrayList<>();
+private boolean mDestroyed = false;
+
+private MaterialShowcaseDisplayer() {
+}
 
 /**
- * Enforces singleton pattern
+ * Get the displayer of an activity
+ * @param activity the activity the showcases are displayed in
+ * @return displayer of the activity. If the activity has been destroyed the returned displayer
+ * drops everything that is enqueued.
  */
-private MaterialShowcaseDisplayer() {
+static synchronized MaterialShowcaseDisplayer forActivity(Activity activity) {
+	removeDestroyedActivities();
+	MaterialShowcaseDisplayer displayer = mDisplayers.get(activity);
+	if (displayer == null) {
+		displayer = new MaterialShowcaseDisplayer();
+		if (activity.isDestroyed()) {
+			displayer.mDestroyed = true;
+		} else {
+			registerLifecycleCallbacks(activity);
+			mDisplayers.put(activity, displayer);
+		}
+	}
+	return displayer;
+}
+
+private static void registerLifecycleCallbacks(Activity activity) {
+	if (mApplication == null) {
+		mApplication = activity.getApplication();
+		mApplication.registerActivityLifecycleCallbacks(mLifecycleCallbacks);
+	}
 }
 
 /**
- * Get singleton instance
- * @return get instance
+ * Drop the displayers of destroyed activities that are still in the map, so that an activity is never
+ * kept alive if its {@link LifecycleCallbacks#onActivityDestroyed(Activity)} call was missed
  */
-public static MaterialShowcaseDisplayer getInstance() {
-	if (mInstance == null) {
-		mInstance = new MaterialShowcaseDisplayer();
+private static void removeDestroyedActivities() {
+	Iterator<Map.Entry<Activity, MaterialShowcaseDisplayer>> iterator = mDisplayers.entrySet().iterator();
+	while (iterator.hasNext()) {
+		Map.Entry<Activity, MaterialShowcaseDisplayer> entry = iterator.next();
+		if (entry.getKey().isDestroyed()) {
+			iterator.remove();
+			final MaterialShowcaseDisplayer displayer = entry.getValue();
+			// The showcases are only touched on the main thread
+			ShowcaseExecutors.main().post(new Runnable() {
+				@Override
+				public void run() {
+					displayer.drop();
+				}
+			});
+		}
+	}
+}
+
+private static void onActivityDestroyed(Activity activity) {
+	MaterialShowcaseDisplayer displayer;
+	synchronized (MaterialShowcaseDisplayer.class) {
+		// Removed first so that the activity is released even if a listener below throws
+		displayer = mDisplayers.remove(activity);
+		if (mDisplayers.isEmpty()) {
+			mBufferPool.clear();
+		}
+	}
+	if (displayer != null) {
+		displayer.drop();
+	}
+}
+
+/**
+ * Drop the current and all queued showcases. The current showcase is stopped, the queued showcases
+ * are told that they won't be shown.
+ */
+private void drop() {
+	mDestroyed = true;
+	MaterialShowcase current = mCurrentShowcase;
+	mCurrentShowcase = null;
+	mCurrentShowcaseId = null;
+	if (current != null) {
+		cancelShown(current);
+	}
+	List<MaterialShowcase> dropped = new ArrayList<>(mQueuedEntries.keySet());
+	mShowcaseQueue.clear();
+	mQueuedEntries.clear();
+	for (int i = 0; i < dropped.size(); i++) {
+		onDropped(dropped.get(i), true);
 	}
-	return mInstance;
 }
 
 /**
  * Add the showcase to the queue. If there are no showcases in the enqueue it will be shown
- * directly
+ * directly. May be called from any thread.
  * @param showcaseContainer the showcase container to be queued and shown
  */
 void enqueue(MaterialShowcase showcaseContainer) {
-	mShowcaseQueue.add(showcaseContainer);
+	enqueue(showcaseContainer, null, 0, ShowcaseQueue.NO_DEADLINE);
+}
+
+/**
+ * Add the showcase to the queue. If there are no showcases in the enqueue it will be shown
+ * directly. If a showcase with the same id is already queued or shown, this showcase is skipped
+ * instead. May be called from any thread.
+ * @param showcaseContainer the showcase container to be queued and shown
+ * @param showcaseId id of the showcase, null to never merge it with other showcases
+ * @param priority showcases with higher priority are shown first
+ * @param deadline {@link SystemClock#uptimeMillis()} time after which the showcase isn't shown,
+ * {@link ShowcaseQueue#NO_DEADLINE} to always show it
+ */
+void enqueue(final MaterialShowcase showcaseContainer, final String showcaseId, final int priority, final long deadline) {
+	if (Looper.myLooper() != Looper.getMainLooper()) {
+		ShowcaseExecutors.main().post(new Runnable() {
+			@Override
+			public void run() {
+				enqueue(showcaseContainer, showcaseId, priority, deadline);
+			}
+		});
+		return;
+	}
+
+	if (mDestroyed) {
+		onDropped(showcaseContainer, true);
+		return;
+	}
+
+	// Already queued or shown, e.g. show() was called twice
+	if (showcaseContainer == mCurrentShowcase || mQueuedEntries.containsKey(showcaseContainer)) {
+		return;
+	}
+
+	// Already shown, merge with the shown showcase
+	if (showcaseId != null && showcaseId.equals(mCurrentShowcaseId)) {
+		onDropped(showcaseContainer, false);
+		return;
+	}
+
+	ShowcaseQueue.Entry<MaterialShowcase> entry = mShowcaseQueue.add(showcaseContainer, showcaseId, priority, deadline);
+	if (entry.getItem() != showcaseContainer) {
+		onDropped(showcaseContainer, false);
+		return;
+	}
+	mQueuedEntries.put(showcaseContainer, entry);
 
 	if (mCurrentShowcase == null) {
 		showNext();
@@ -42,11 +177,43 @@ void enqueue(MaterialShowcase showcaseContainer) {
 }
 
 private void showNext() {
-	mCurrentShowcase = mShowcaseQueue.poll();
+	MaterialShowcase nextShowcase = mShowcaseQueue.poll(SystemClock.uptimeMillis(), mExpiredShowcases);
+	ShowcaseQueue.Entry<MaterialShowcase> nextEntry = nextShowcase != null ? mQueuedEntries.remove(nextShowcase) : null;
+	mCurrentShowcase = nextShowcase;
+	mCurrentShowcaseId = nextEntry != null ? nextEntry.getShowcaseId() : null;
 
-	if (mCurrentShowcase != null) {
-		mCurrentShowcase._showNow();
+	// Notified after the next showcase is set in case the listeners enqueue new showcases
+	for (int i = 0; i < mExpiredShowcases.size(); i++) {
+		MaterialShowcase expired = mExpiredShowcases.get(i);
+		mQueuedEntries.remove(expired);
+		onDropped(expired, true);
 	}
+	mExpiredShowcases.clear();
+
+	if (nextShowcase != null) {
+		nextShowcase._showNow();
+	}
+	// Queue drained, free all overlay buffers if no other activity is showing a showcase
+	else if (!isAnyShowing()) {
+		mBufferPool.clear();
+	}
+}
+
+private static synchronized boolean isAnyShowing() {
+	for (MaterialShowcaseDisplayer displayer : mDisplayers.values()) {
+		if (displayer.mCurrentShowcase != null) {
+			return true;
+		}
+	}
+	return false;
+}
+
+/**
+ * Get the overlay buffer pool shared by all showcases
+ * @return pool of overlay buffers
+ */
+static OverlayBufferPool getBufferPool() {
+	return mBufferPool;
 }
 
 /**
@@ -56,9 +223,68 @@ private void showNext() {
 void onFinished(MaterialShowcase showcaseContainer) {
 	if (showcaseContainer == mCurrentShowcase) {
 		mCurrentShowcase = null;
+		mCurrentShowcaseId = null;
 		showNext();
 	} else {
-		mShowcaseQueue.remove(showcaseContainer);
+		ShowcaseQueue.Entry<MaterialShowcase> entry = mQueuedEntries.remove(showcaseContainer);
+		if (entry != null) {
+			mShowcaseQueue.cancel(entry);
+		}
+	}
+}
+
+/**
+ * Tell a showcase that it won't be shown
+ * @param showcaseContainer the showcase that was dropped
+ * @param reset true if it passed its deadline or its activity was destroyed, false if it was merged
+ * with another showcase
+ */
+private static void onDropped(MaterialShowcase showcaseContainer, boolean reset) {
+	if (showcaseContainer instanceof MaterialShowcaseView) {
+		((MaterialShowcaseView) showcaseContainer).onDropped(reset);
+	}
+}
+
+/**
+ * Stop a showcase that is shown or about to be shown in an activity that was destroyed
+ * @param showcaseContainer the current showcase of the activity
+ */
+private static void cancelShown(MaterialShowcase showcaseContainer) {
+	if (showcaseContainer instanceof MaterialShowcaseView) {
+		((MaterialShowcaseView) showcaseContainer).onActivityDestroyed();
+	} else if (showcaseContainer instanceof MaterialShowcaseSequence) {
+		((MaterialShowcaseSequence) showcaseContainer).onActivityDestroyed();
+	}
+}
+
+private static class LifecycleCallbacks implements Application.ActivityLifecycleCallbacks {
+	@Override
+	public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+	}
+
+	@Override
+	public void onActivityStarted(Activity activity) {
+	}
+
+	@Override
+	public void onActivityResumed(Activity activity) {
+	}
+
+	@Override
+	public void onActivityPaused(Activity activity) {
+	}
+
+	@Override
+	public void onActivityStopped(Activity activity) {
+	}
+
+	@Override
+	public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+	}
+
+	@Override
+	public void onActivityDestroyed(Activity activity) {
+		MaterialShowcaseDisplayer.onActivityDestroyed(activity);
 	}
 }
 }
@@ -1,21 +1,36 @@
 package io.blushine.android.ui.showcase;
 
 import android.app.Activity;
+import android.graphics.Point;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.support.annotation.NonNull;
 import android.view.View;
 
 import java.util.LinkedList;
 import java.util.Queue;
 
+import io.blushine.android.ui.showcase.target.Target;
+import io.blushine.android.ui.showcase.target.ViewTarget;
+
 public class MaterialShowcaseSequence implements DetachedListener, MaterialShowcase {
-	private static final MaterialShowcaseDisplayer mShowcaseDisplayer = MaterialShowcaseDisplayer.getInstance();
 	PrefsGateway mPrefsGateway;
-	Queue<MaterialShowcaseView> mShowcaseQueue;
+	Queue<SequenceItem> mShowcaseQueue;
 	Activity mActivity;
 	private boolean mSingleUse = false;
 	private ShowcaseConfig mConfig;
 	private int mSequencePosition = 0;
 	private MaterialShowcaseView mCurrentShownShowcase;
+	private MaterialShowcaseView mHost;
+	private boolean mMorphTransitions = false;
+	private PreparedStep mPreparedStep = null;
+	private final MessageQueue.IdleHandler mPrepareNextStep = new MessageQueue.IdleHandler() {
+		@Override
+		public boolean queueIdle() {
+			prepareNextStep();
+			return false;
+		}
+	};
 
 	/**
 	 * Create a showcase sequence for single use
@@ -49,17 +64,9 @@ public class MaterialShowcaseSequence implements DetachedListener, MaterialShowc
 	}
 
 	public MaterialShowcaseSequence addSequenceItem(View targetView, String title, String content, String dismissText) {
-
-		MaterialShowcaseView.Builder builder = new MaterialShowcaseView.Builder(mActivity)
-				.setTitleText(title)
-				.setDismissText(dismissText)
-				.setContentText(content);
-
-		if (targetView != null) {
-			builder.setTarget(targetView);
-		}
-
-		return addSequenceItem(builder.build());
+		// The showcase isn't built until the step is displayed
+		mShowcaseQueue.add(new SequenceItem(targetView, title, content, dismissText, mConfig));
+		return this;
 	}
 
 	public MaterialShowcaseSequence addSequenceItem(MaterialShowcaseView sequenceItem) {
@@ -67,18 +74,24 @@ public class MaterialShowcaseSequence implements DetachedListener, MaterialShowc
 			sequenceItem.setConfig(mConfig);
 		}
 
-		mShowcaseQueue.add(sequenceItem);
+		mShowcaseQueue.add(new SequenceItem(sequenceItem));
 		return this;
 	}
 
 	public MaterialShowcaseSequence addSequenceItem(int targetViewId, int contentResId, int dismissTextResId) {
-		addSequenceItem(mActivity.findViewById(targetViewId), mActivity.getString(contentResId), mActivity.getString(dismissTextResId));
-		return this;
+		return addSequenceItem(targetViewId, "", mActivity.getString(contentResId), mActivity.getString(dismissTextResId));
 	}
 
 	public MaterialShowcaseSequence addSequenceItem(int targetViewId, int titleResId, int contentResId, int dismissTextResId) {
-		addSequenceItem(mActivity.findViewById(targetViewId), mActivity.getString(titleResId),
-				mActivity.getString(contentResId), mActivity.getString(dismissTextResId));
+		return addSequenceItem(targetViewId, mActivity.getString(titleResId), mActivity.getString(contentResId), mActivity.getString(dismissTextResId));
+	}
+
+	/**
+	 * Add a step that targets a view by its id. The view is looked up when the step is displayed, so it
+	 * doesn't have to exist yet.
+	 */
+	public MaterialShowcaseSequence addSequenceItem(int targetViewId, String title, String content, String dismissText) {
+		mShowcaseQueue.add(new SequenceItem(targetViewId, title, content, dismissText, mConfig));
 		return this;
 	}
 
@@ -105,7 +118,7 @@ public class MaterialShowcaseSequence implements DetachedListener, MaterialShowc
 
 		// Enqueue this
 		if (mShowcaseQueue.size() > 0) {
-			mShowcaseDisplayer.enqueue(this);
+			MaterialShowcaseDisplayer.forActivity(mActivity).enqueue(this);
 		}
 	}
 
@@ -138,16 +151,138 @@ public class MaterialShowcaseSequence implements DetachedListener, MaterialShowc
 
 	private void showNextItem() {
 		if (mShowcaseQueue.size() > 0 && !mActivity.isFinishing()) {
-			mCurrentShownShowcase = mShowcaseQueue.remove();
+			SequenceItem item = mShowcaseQueue.remove();
+
+			if (item.isPrebuilt()) {
+				releaseHost();
+				mCurrentShownShowcase = item.getShowcaseView();
+			} else {
+				mCurrentShownShowcase = bindHost(item);
+			}
+
 			mCurrentShownShowcase.setDetachedListener(this);
 			mCurrentShownShowcase._showNow();
+			schedulePrepareNextStep();
 		}
 		// We've reached the end of the sequence, save the fired state
 		else {
-			if (mSingleUse) {
+			releaseHost();
+			if (mSingleUse && mPrefsGateway != null) {
 				mPrefsGateway.setFired();
 			}
-			mShowcaseDisplayer.onFinished(this);
+			MaterialShowcaseDisplayer.forActivity(mActivity).onFinished(this);
+		}
+	}
+
+	@Override
+	public boolean onShowcaseMorphRequested(MaterialShowcaseView showcaseView) {
+		SequenceItem nextItem = mShowcaseQueue.peek();
+
+		// Can only morph between two target steps in the host
+		if (!mMorphTransitions || showcaseView != mHost || !showcaseView.hasTarget() ||
+				nextItem == null || nextItem.isPrebuilt() || !nextItem.hasTarget() || mActivity.isFinishing()) {
+			return false;
+		}
+
+		mShowcaseQueue.remove();
+		if (mPrefsGateway != null) {
+			mSequencePosition++;
+			mPrefsGateway.setSequenceStatus(mSequencePosition);
+		}
+
+		showcaseView.morphTo(nextItem, takePreparedTarget(nextItem));
+		schedulePrepareNextStep();
+		return true;
+	}
+
+	/**
+	 * Morph the target and background directly from one step to the next instead of dismissing the
+	 * step and revealing the next one. Only used between consecutive steps that have targets and aren't
+	 * prebuilt showcases. False by default.
+	 * @param morphTransitions true to morph between steps
+	 */
+	public void setMorphTransitions(boolean morphTransitions) {
+		mMorphTransitions = morphTransitions;
+	}
+
+	/**
+	 * Show a step in the host showcase. The host stays attached for all consecutive steps that aren't
+	 * prebuilt so that moving to the next step doesn't add or remove any views from the window.
+	 * @param item the step to show
+	 * @return the host showcase
+	 */
+	private MaterialShowcaseView bindHost(SequenceItem item) {
+		if (mHost == null) {
+			mHost = new MaterialShowcaseView(mActivity);
+			mHost.setSequenceHost(true);
+		} else {
+			mHost.resetStep();
+		}
+
+		item.applyTo(mHost, takePreparedTarget(item));
+		return mHost;
+	}
+
+	/**
+	 * Prepare the next step when the main thread is idle while the current step is displayed
+	 */
+	private void schedulePrepareNextStep() {
+		cancelPrepareNextStep();
+		if (mHost != null && !mShowcaseQueue.isEmpty()) {
+			Looper.myQueue().addIdleHandler(mPrepareNextStep);
+		}
+	}
+
+	private void cancelPrepareNextStep() {
+		Looper.myQueue().removeIdleHandler(mPrepareNextStep);
+		if (mPreparedStep != null) {
+			mPreparedStep.release();
+			mPreparedStep = null;
+		}
+	}
+
+	/**
+	 * Resolve the target and measure the texts of the next step ahead of time
+	 */
+	private void prepareNextStep() {
+		SequenceItem nextItem = mShowcaseQueue.peek();
+		if (mHost == null || nextItem == null || nextItem.isPrebuilt()) {
+			return;
+		}
+
+		if (mPreparedStep != null) {
+			mPreparedStep.release();
+		}
+		mPreparedStep = new PreparedStep(nextItem, mActivity);
+		mHost.prepareText(nextItem.getTitle(), nextItem.getContent(), null);
+	}
+
+	/**
+	 * Get the target that was prepared for a step
+	 * @param item the step that is about to be displayed
+	 * @return the prepared target, null if nothing was prepared or the target has moved since
+	 */
+	private Target takePreparedTarget(SequenceItem item) {
+		PreparedStep preparedStep = mPreparedStep;
+		mPreparedStep = null;
+		if (preparedStep != null) {
+			if (preparedStep.isValidFor(item)) {
+				return preparedStep.mTarget;
+			}
+			preparedStep.release();
+		}
+		return null;
+	}
+
+	/**
+	 * Remove the host showcase from the window
+	 */
+	private void releaseHost() {
+		cancelPrepareNextStep();
+		if (mHost != null) {
+			mHost.setSequenceHost(false);
+			mHost.removeFromWindow();
+			mHost = null;
 		}
 	}
 
@@ -163,7 +298,6 @@ public class MaterialShowcaseSequence implements DetachedListener, MaterialShowc
 
 		if (mPrefsGateway != null) {
 			mPrefsGateway.setSequenceStatus(mSequencePosition);
-			mPrefsGateway.close();
 			mPrefsGateway = null;
 		}
 
@@ -171,7 +305,26 @@ public class MaterialShowcaseSequence implements DetachedListener, MaterialShowc
 			mCurrentShownShowcase.hide();
 		}
 
-		mShowcaseDisplayer.onFinished(this);
+		MaterialShowcaseDisplayer.forActivity(mActivity).onFinished(this);
+	}
+
+	/**
+	 * Called by the displayer when the activity is destroyed while this sequence is shown. Stops the
+	 * current step without continuing with the next one. The reached position is kept so that a single
+	 * use sequence resumes from it.
+	 */
+	void onActivityDestroyed() {
+		mShowcaseQueue.clear();
+		cancelPrepareNextStep();
+		if (mCurrentShownShowcase != null) {
+			mCurrentShownShowcase.onActivityDestroyed();
+			mCurrentShownShowcase = null;
+		}
+		if (mHost != null) {
+			mHost.setSequenceHost(false);
+			mHost.onActivityDestroyed();
+			mHost = null;
+		}
 	}
 
 	@Override
@@ -192,6 +345,49 @@ public class MaterialShowcaseSequence implements DetachedListener, MaterialShowc
 		}
 	}
 
+	/**
+	 * A step that has been prepared while the previous step is displayed
+	 */
+	private static class PreparedStep {
+		private final SequenceItem mItem;
+		private final Target mTarget;
+		private final Point mTargetPoint = new Point();
+		private final Point mCurrentPoint = new Point();
+
+		PreparedStep(SequenceItem item, Activity activity) {
+			mItem = item;
+			mTarget = item.createTarget(activity);
+			if (mTarget != null) {
+				mTarget.getPoint(mTargetPoint);
+			}
+		}
+
+		/**
+		 * Check if the prepared step can still be used
+		 * @param item the step that is about to be displayed
+		 * @return true if this is the prepared step and its target hasn't moved
+		 */
+		boolean isValidFor(SequenceItem item) {
+			if (item != mItem) {
+				return false;
+			}
+			if (mTarget != null) {
+				mTarget.getPoint(mCurrentPoint);
+				return mCurrentPoint.equals(mTargetPoint);
+			}
+			return true;
+		}
+
+		/**
+		 * Release the prepared target when it won't be used
+		 */
+		void release() {
+			if (mTarget instanceof ViewTarget) {
+				((ViewTarget) mTarget).release();
+			}
+		}
+	}
+
 	/**
 	 * Set a config to be applied to all subsequent showcases that are added, i.e. calls {@link
 	 * MaterialShowcaseView#setConfig(ShowcaseConfig)}.
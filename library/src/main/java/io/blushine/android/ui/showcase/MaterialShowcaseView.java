@@ -10,18 +10,20 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
+import android.graphics.PixelFormat;
 import android.graphics.Point;
 import android.graphics.PorterDuff;
 import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
 import android.os.Build;
 import android.os.Handler;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
 import android.support.annotation.StringRes;
 import android.support.v4.view.ViewCompat;
 import android.support.v7.widget.AppCompatButton;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
-import android.util.Log;
 import android.util.TypedValue;
 import android.view.Gravity;
 import android.view.LayoutInflater;
@@ -29,13 +31,18 @@ import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.ViewTreeObserver;
+import android.view.WindowManager;
 import android.widget.FrameLayout;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.List;
 
+import io.blushine.android.ui.showcase.state.SharedPreferencesStateStore;
+import io.blushine.android.ui.showcase.state.ShowcaseStateStore;
 import io.blushine.android.ui.showcase.target.Target;
 import io.blushine.android.ui.showcase.target.ViewTarget;
 
@@ -51,6 +58,7 @@ import io.blushine.android.ui.showcase.target.ViewTarget;
  * once
  * 	.setContentText("Some text describing the feature")
  * 	.setDelay(0) // Set it to at least 300ms if your showcase calls show() in onCreate()
+ * 	.showWhenIdle(1000) // Or start it when the main thread is idle, wait at most 1000ms for it
  * 	.setDismissText("Got it") // Will always be CAPITALIZED - When set user must click on it to
  * continue
  * 	.setBackgroundColor(Color.RED) // You can also override R.color.material_showcase_background
@@ -64,10 +72,10 @@ import io.blushine.android.ui.showcase.target.ViewTarget;
  * </pre>
  * Nothing in mandatory for the showcase to view
  */
-public class MaterialShowcaseView extends FrameLayout implements View.OnTouchListener, View.OnClickListener, MaterialShowcase {
+public class MaterialShowcaseView extends FrameLayout implements View.OnTouchListener, View.OnClickListener, MaterialShowcase, TargetTracker.Listener {
 
 	private static final String TAG = MaterialShowcaseView.class.getSimpleName();
-	private static final MaterialShowcaseDisplayer mShowcaseDisplayer = MaterialShowcaseDisplayer.getInstance();
+	private static final long SCROLL_SETTLE_DELAY = 150;
 	List<ShowcaseListener> mListeners = new ArrayList<>();
 	private int mOldHeight;
 	private int mOldWidth;
@@ -82,26 +90,97 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 	private TextView mContentTextView;
 	private AppCompatButton mDismissButton;
 	private Point mTargetLastPoint = new Point();
-	private Point mContentLastPoint = new Point();
+	private Point mTargetPoint = new Point();
 	private CircleShape mBackgroundShape = new CircleShape();
-	private Target mContentBoxTarget;
+	private ViewTarget mContentBoxTarget;
 	private boolean mShouldRender = false; // flag to decide when we should actually render
 	private boolean mRenderOverNav = false;
 	private int mBackgroundColor;
 	private Paint mBackgroundColorPaint;
-	private Handler mHandler;
+	private final Handler mHandler = ShowcaseExecutors.main();
 	private long mDelayInMillis = 0;
+	private long mShowWhenIdleMaxWait = -1;
+	private IdleStarter mIdleStarter = null;
+	private long mWaitForTargetTimeout = -1;
+	private TargetReadyWaiter mTargetReadyWaiter = null;
+	private int mPriority = 0;
+	private long mExpiryInMillis = -1;
+	private String mShowcaseId = null;
 	private boolean mSingleUse = false; // should display only once
+	private boolean mPrepared = false; // texts measured by prepare(), fired state not written yet
 	private PrefsGateway mPrefsGateway; // used to store state doe single use mode
 	private UpdateOnGlobalLayout mLayoutListener;
 	private DetachedListener mDetachedListener;
 	private boolean mTargetTouchable = true;
 	private boolean mInitialLayoutDone = false;
-	private CircularShapeAnimation mTargetAnimation = null;
-	private CircularShapeAnimation mBackgroundAnimation = null;
+	private boolean mContentLaidOut = false;
+	private CircularAnimation<CircleShape> mTargetAnimation = null;
+	private CircularAnimation<CircleShape> mBackgroundAnimation = null;
 	private AlphaAnimation mAlphaAnimation = null;
+	private AlphaAnimation mContentAlphaAnimation = null;
+	private Point mMorphFromBackground = new Point();
+	private int mMorphFromBackgroundRadius = 0;
 	private AnimationStates mAnimationState = null;
+	private ChoreographerAnimationClock mFrameClock = new ChoreographerAnimationClock();
+	private AnimationClock mAnimationClock = mFrameClock;
+	private TargetTracker mTargetTracker = new TargetTracker(this);
+	private boolean mTargetTracked = false;
+	private boolean mTargetMoved = false;
+	private boolean mFollowTargetScroll = false;
+	private boolean mSequenceHost = false;
+	private final Runnable mScrollSettled = new Runnable() {
+		@Override
+		public void run() {
+			onScrollSettled();
+		}
+	};
+	private long mShowAtMillis = 0;
+	private boolean mStartPending = false; // start not posted yet, waiting for the texts to be measured
+	private final Runnable mPostStart = new Runnable() {
+		@Override
+		public void run() {
+			postStart();
+		}
+	};
+	private final Runnable mStart = new Runnable() {
+		@Override
+		public void run() {
+			if (mTargetReadyWaiter != null) {
+				mTargetReadyWaiter.start();
+			} else {
+				reveal();
+			}
+		}
+	};
+	private final Runnable mAttachAndReveal = new Runnable() {
+		@Override
+		public void run() {
+			attachAndReveal();
+		}
+	};
+	private final TargetReadyWaiter.Listener mTargetReadyListener = new TargetReadyWaiter.Listener() {
+		@Override
+		public void onTargetReady() {
+			mTargetReadyWaiter = null;
+			reveal();
+		}
+
+		@Override
+		public void onTargetTimeout() {
+			mTargetReadyWaiter = null;
+			onTargetNotReady();
+		}
+	};
 	private Path mClippingPath = new Path();
+	private Path mOverlayPath = new Path();
+	private Path mTargetPath = new Path();
+	private Rect mDrawnBounds = new Rect();
+	private Rect mFrameBounds = new Rect();
+	private RenderMode mRenderMode = RenderMode.DIRECT;
+	private AttachMode mAttachMode = AttachMode.DECOR;
+	private AttachMode mAttachedTo = null;
+	private boolean mForwardTouches = false;
+	private final int[] mLocation = new int[2];
 	private Activity mActivity = null;
 
 	/**
@@ -220,6 +299,38 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 		return PrefsGateway.hasFired(context, showcaseId);
 	}
 
+	/**
+	 * Static helper method for resetting the single use flags of all showcases in a namespace. The
+	 * namespace is the start of the showcase ids, e.g. "onboarding/" for "onboarding/welcome" and
+	 * "onboarding/menu".
+	 * @param context application context
+	 * @param namespace start of the showcase ids to reset
+	 */
+	public static void resetAll(Context context, @NonNull String namespace) {
+		PrefsGateway.resetNamespace(context, namespace);
+	}
+
+	/**
+	 * Static helper to check which of several showcases have been fired with one lookup
+	 * @param context application context
+	 * @param showcaseIds the showcases to check
+	 * @param out bit i is set if showcaseIds[i] has been fired and cleared otherwise
+	 */
+	public static void hasFired(Context context, @NonNull String[] showcaseIds, @NonNull BitSet out) {
+		PrefsGateway.hasFired(context, showcaseIds, out);
+	}
+
+	/**
+	 * Static helper to get all showcases in a namespace that have been fired. The namespace is the
+	 * start of the showcase ids, e.g. "onboarding/" for "onboarding/welcome" and "onboarding/menu".
+	 * @param context application context
+	 * @param namespace start of the showcase ids
+	 * @param out ids of the fired showcases are added to this collection
+	 */
+	public static void getFired(Context context, @NonNull String namespace, @NonNull Collection<String> out) {
+		PrefsGateway.getFired(context, namespace, out);
+	}
+
 	/**
 	 * Static helper method for setting a showcase as fired.
 	 * @param context application context
@@ -229,6 +340,34 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 		PrefsGateway.setFired(context, showcaseId);
 	}
 
+	/**
+	 * Set where single use and sequence states are stored. Call this before any showcase is used,
+	 * e.g. in {@link android.app.Application#onCreate()}. Default is {@link SharedPreferencesStateStore}.
+	 * @param stateStore the store to use, null to use the default store
+	 * @see io.blushine.android.ui.showcase.state.MappedFileStateStore
+	 * @see io.blushine.android.ui.showcase.state.InMemoryStateStore
+	 */
+	public static void setStateStore(ShowcaseStateStore stateStore) {
+		ShowcaseStateCache.setStateStore(stateStore);
+	}
+
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		int width = getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec);
+		int height = getDefaultSize(getSuggestedMinimumHeight(), heightMeasureSpec);
+		setMeasuredDimension(width, height);
+
+		// The content box's size doesn't depend on the target, only where it's placed does
+		measureChild(mContentBox, MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY), MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY));
+	}
+
+	@Override
+	protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+		// The content box is the only child
+		layoutContentBox();
+		mContentLaidOut = true;
+	}
+
 	/**
 	 * Interesting drawing stuff. We draw a block of semi transparent colour to fill the whole screen
 	 * then we draw of transparency to create a circular "viewport" through to the underlying content
@@ -254,22 +393,25 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 
 
 		// build a new canvas if needed i.e first pass or new dimensions
-		if (mBitmap == null || mCanvas == null || mOldHeight != height || mOldWidth != width) {
+		if (mRenderMode == RenderMode.BITMAP && (mBitmap == null || mCanvas == null || mOldHeight != height || mOldWidth != width)) {
+			OverlayBufferPool bufferPool = MaterialShowcaseDisplayer.getBufferPool();
 
 			if (mBitmap != null) {
-				mBitmap.recycle();
+				mBitmap = bufferPool.resize(getContext(), mBitmap, width, height);
+			} else {
+				mBitmap = bufferPool.acquire(getContext(), width, height);
 			}
 
-			mBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-
-			mCanvas = new Canvas(mBitmap);
+			if (mCanvas == null) {
+				mCanvas = new Canvas(mBitmap);
+			} else {
+				mCanvas.setBitmap(mBitmap);
+			}
 		}
 
-		// Content position changed
+		// Target moved or content box changed
 		if (needsLayout()) {
-			if (layout()) {
-				return;
-			}
+			layout();
 		}
 		mContentBox.setVisibility(VISIBLE);
 
@@ -279,19 +421,78 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 
 		updateAnimations();
 		drawShapes(canvas);
+
+		// Keep drawing frames until the animation is done
+		if (mAnimationState != AnimationStates.DONE) {
+			invalidate();
+		}
 	}
 
 	private boolean needsLayout() {
 		return !mInitialLayoutDone ||
-				!mContentLastPoint.equals((int) mContentBox.getX(), (int) mContentBox.getY()) ||
-				(mTarget != null && !mTargetLastPoint.equals(mTarget.getPoint()));
+				mTargetMoved ||
+				mContentLaidOut ||
+				(mTarget != null && !mTargetTracked && !mTargetLastPoint.equals(getTargetPoint()));
+	}
+
+	/**
+	 * Called by the {@link TargetTracker} at most once per frame when the target has moved
+	 */
+	@Override
+	public void onTargetMoved(boolean scrolled) {
+		if (scrolled && mFollowTargetScroll && mInitialLayoutDone && mAnimationState == AnimationStates.DONE) {
+			followTargetScroll();
+		} else {
+			mTargetMoved = true;
+			invalidate();
+		}
+	}
+
+	/**
+	 * Follow a scrolling target by translating the content box instead of doing a relayout. The target
+	 * hole is always drawn at the target's current position. A real relayout is done once the scrolling
+	 * has settled.
+	 */
+	private void followTargetScroll() {
+		Point targetPoint = getTargetPoint();
+		mContentBox.setTranslationY(targetPoint.y - mTargetLastPoint.y);
+		mContentBoxTarget.invalidate();
+		invalidate();
+
+		removeCallbacks(mScrollSettled);
+		postDelayed(mScrollSettled, SCROLL_SETTLE_DELAY);
+	}
+
+	private void onScrollSettled() {
+		mContentBox.setTranslationY(0);
+		mContentBoxTarget.invalidate();
+		mTargetMoved = true;
+		invalidate();
+	}
+
+	/**
+	 * Start tracking the target's position. Targets that can't be tracked are polled every draw.
+	 */
+	private void startTrackingTarget() {
+		if (mTarget != null) {
+			mTargetTracked = mTargetTracker.track(mTarget);
+		} else {
+			stopTrackingTarget();
+		}
+	}
+
+	private void stopTrackingTarget() {
+		mTargetTracker.stop();
+		mTargetTracked = false;
 	}
 
 	/**
-	 * Layout all shapes
-	 * @return true if we should skip the rest of the drawing
+	 * Place the content box and layout all shapes in one pass. Never requests a layout, the content box
+	 * is moved directly.
 	 */
-	private boolean layout() {
+	private void layout() {
+		mTargetMoved = false;
+		mContentLaidOut = false;
 		if (mTarget != null) {
 			layoutTarget();
 			if (useTargetAsBackgroundCenter()) {
@@ -305,17 +506,10 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 			mBackgroundShape.setTarget(mContentBoxTarget);
 			layoutFullscreen();
 		}
-		mContentLastPoint.set((int) mContentBox.getX(), (int) mContentBox.getY());
 
+		mInitialLayoutDone = true;
+		updateBackgroundRadius();
 		invalidate();
-		if (!mInitialLayoutDone) {
-			mInitialLayoutDone = true;
-			return true;
-		} else {
-			updateBackgroundRadius();
-		}
-
-		return false;
 	}
 
 	private void updateAnimations() {
@@ -333,14 +527,12 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 				mBackgroundAnimation = null;
 				onAnimaitonDone();
 			}
-
-			// Update clipping path
-			Point backgroundPoint = mBackgroundShape.getPoint();
-			Log.d(TAG, "updateAnimations() — Clipping radius: " + mBackgroundShape.getRadius());
-			mClippingPath.reset();
-			mClippingPath.addCircle(backgroundPoint.x, backgroundPoint.y, mBackgroundShape.getRadius(), Path.Direction.CW);
 		}
 
+		// Update clipping path, the background can move without being animated when following a target
+		mClippingPath.reset();
+		mBackgroundShape.addToPath(mClippingPath);
+
 		if (mAlphaAnimation != null) {
 			boolean done = mAlphaAnimation.update(this);
 			if (done) {
@@ -348,21 +540,78 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 			}
 		}
 
-		if (mAnimationState != AnimationStates.DONE) {
-			invalidate();
+		if (mContentAlphaAnimation != null) {
+			boolean done = mContentAlphaAnimation.update(mContentBox);
+			if (done) {
+				mContentAlphaAnimation = null;
+			}
 		}
 	}
 
+	/**
+	 * Calculate the area that has to be redrawn this frame, i.e. the area covered by the background in
+	 * the previous frame and in this frame.
+	 */
+	private void updateFrameBounds() {
+		mFrameBounds.set(mDrawnBounds);
+		mBackgroundShape.getBounds(mDrawnBounds);
+		mFrameBounds.union(mDrawnBounds);
+	}
+
 	private void drawShapes(Canvas canvas) {
+		if (mBackgroundColorPaint == null) {
+			mBackgroundColorPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+			mBackgroundColorPaint.setColor(mBackgroundColor);
+		}
+
+		if (mRenderMode == RenderMode.DIRECT) {
+			drawShapesDirect(canvas);
+		} else {
+			drawShapesBitmap(canvas);
+		}
+	}
+
+	/**
+	 * Draw the background with the target cut out straight onto the view's canvas. The hole is made by
+	 * subtracting the target circle from the background circle, so no offscreen buffer is needed.
+	 * @param canvas the view's canvas
+	 */
+	private void drawShapesDirect(Canvas canvas) {
+		mOverlayPath.reset();
+		if (!mBackgroundShape.addToPath(mOverlayPath)) {
+			return;
+		}
+
+		if (mTargetShape != null) {
+			mTargetPath.reset();
+			if (mTargetShape.addToPath(mTargetPath)) {
+				mOverlayPath.op(mTargetPath, Path.Op.DIFFERENCE);
+			}
+		}
+
+		canvas.drawPath(mOverlayPath, mBackgroundColorPaint);
+	}
+
+	/**
+	 * Draw the shapes into a full-screen offscreen bitmap and erase the target from it. Fallback for
+	 * {@link RenderMode#BITMAP}.
+	 * @param canvas the view's canvas
+	 */
+	private void drawShapesBitmap(Canvas canvas) {
 		if (mCanvas != null) {
+			updateFrameBounds();
+			if (mFrameBounds.isEmpty()) {
+				return;
+			}
+
+			// The bitmap is drawn in software, the clip limits clearing it and drawing the shapes into it to
+			// the frame bounds. The whole bitmap is still uploaded as a texture each frame it changes.
+			mCanvas.save();
+			mCanvas.clipRect(mFrameBounds);
+
 			// Clear canvas
 			mCanvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
 
-			if (mBackgroundColorPaint == null) {
-				mBackgroundColorPaint = new Paint();
-				mBackgroundColorPaint.setColor(mBackgroundColor);
-			}
-
 			// draw background circle
 			mBackgroundShape.draw(mCanvas, mBackgroundColorPaint);
 
@@ -371,59 +620,56 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 				mTargetShape.draw(mCanvas, mEraser);
 			}
 
-			// Draw the bitmap on our views  canvas.
-			canvas.drawBitmap(mBitmap, 0, 0, null);
+			mCanvas.restore();
+
+			// Composite only the frame bounds of the bitmap onto our view's canvas. Nothing is drawn outside
+			// the background so this is all we need.
+			canvas.drawBitmap(mBitmap, mFrameBounds, mFrameBounds, null);
 		}
 	}
 
+	/**
+	 * Get the center of the target without allocating
+	 * @return center of the target. Reused between calls
+	 */
+	private Point getTargetPoint() {
+		mTarget.getPoint(mTargetPoint);
+		return mTargetPoint;
+	}
+
 	private void layoutTarget() {
-		Point targetPoint = mTarget.getPoint();
+		Point targetPoint = getTargetPoint();
 		mTargetLastPoint.set(targetPoint.x, targetPoint.y);
+		layoutContentBox();
+	}
 
-		// now figure out whether to put content above or below it
-		int height = getMeasuredHeight();
-		int midPoint = height / 2;
-		int yPos = targetPoint.y;
-
-		int gravity;
-		int contentTopMargin;
-		int contentBottomMargin;
-		if (yPos > midPoint) {
-			// target is in lower half of screen, we'll sit above it
-			contentTopMargin = 0;
-			contentBottomMargin = (height - yPos) + ShowcaseConfig.mTargetRadiusDefault;
-			gravity = Gravity.BOTTOM;
-		} else {
-			// target is in upper half of screen, we'll sit below it
-			contentTopMargin = yPos + ShowcaseConfig.mTargetRadiusDefault;
-			contentBottomMargin = 0;
-			gravity = Gravity.TOP;
-		}
-
-		if (mContentBox != null && mContentBox.getLayoutParams() != null) {
-			LayoutParams contentLP = (LayoutParams) mContentBox.getLayoutParams();
-
-			boolean layoutParamsChanged = false;
-
-			if (contentLP.bottomMargin != contentBottomMargin) {
-				contentLP.bottomMargin = contentBottomMargin;
-				layoutParamsChanged = true;
-			}
-
-			if (contentLP.topMargin != contentTopMargin) {
-				contentLP.topMargin = contentTopMargin;
-				layoutParamsChanged = true;
-			}
+	/**
+	 * Place the measured content box above or below the target, or in the center when there is no
+	 * target. Moving it doesn't request a layout.
+	 */
+	private void layoutContentBox() {
+		int width = mContentBox.getMeasuredWidth();
+		int height = mContentBox.getMeasuredHeight();
+		int left = (getMeasuredWidth() - width) / 2;
 
-			if (contentLP.gravity != gravity) {
-				contentLP.gravity = gravity;
-				layoutParamsChanged = true;
+		int top;
+		if (mTarget != null) {
+			// now figure out whether to put content above or below it
+			int yPos = getTargetPoint().y;
+			if (yPos > getMeasuredHeight() / 2) {
+				// target is in lower half of screen, we'll sit above it
+				top = yPos - ShowcaseConfig.mTargetRadiusDefault - height;
+			} else {
+				// target is in upper half of screen, we'll sit below it
+				top = yPos + ShowcaseConfig.mTargetRadiusDefault;
 			}
+		} else {
+			top = (getMeasuredHeight() - height) / 2;
+		}
 
-			// Only apply the layout params if we've actually changed them, otherwise we'll get stuck in a layout loop
-			if (layoutParamsChanged) {
-				mContentBox.setLayoutParams(contentLP);
-			}
+		if (mContentBox.getLeft() != left || mContentBox.getTop() != top ||
+				mContentBox.getWidth() != width || mContentBox.getHeight() != height) {
+			mContentBox.layout(left, top, left + width, top + height);
 		}
 	}
 
@@ -439,7 +685,7 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 			int height = getMeasuredHeight();
 
 			int targetNearBorderDistance = ShowcaseConfig.mTargetNearBorderDistance;
-			Point targetPoint = mTarget.getPoint();
+			Point targetPoint = getTargetPoint();
 
 			return targetNearBorderDistance >= targetPoint.x ||
 					targetPoint.x >= width - targetNearBorderDistance ||
@@ -451,13 +697,8 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 	}
 
 	private void layoutFullscreen() {
-		if (mContentBox != null && mContentBox.getLayoutParams() != null) {
-			LayoutParams layoutParams = (LayoutParams) mContentBox.getLayoutParams();
-
-			if (layoutParams.gravity != Gravity.CENTER) {
-				layoutParams.gravity = Gravity.CENTER;
-				mContentBox.setLayoutParams(layoutParams);
-			}
+		layoutContentBox();
+		if (mContentBox != null) {
 			mContentBox.setGravity(Gravity.CENTER);
 		}
 
@@ -481,96 +722,249 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 		int top = mContentBox.getTop();
 		int bottom = mContentBox.getBottom();
 
-		int maxRadius = 0;
+		int maxRadius;
 
 		// Around target and content
 		if (mTarget != null) {
-			Point[] contentPoints = new Point[4];
-			contentPoints[0] = new Point(left, top);
-			contentPoints[1] = new Point(left, bottom);
-			contentPoints[2] = new Point(right, top);
-			contentPoints[3] = new Point(right, bottom);
-
-			Point diffPoint = new Point();
-
-			// Check content points
-			Point centerPoint = mBackgroundShape.getPoint();
-			for (Point contentPoint : contentPoints) {
-				diffPoint.set(contentPoint.x - centerPoint.x, contentPoint.y - centerPoint.y);
-				int distance = diffPoint.x * diffPoint.x + diffPoint.y * diffPoint.y;
-
-				if (distance > maxRadius) {
-					maxRadius = distance;
-				}
-			}
-			maxRadius = (int) Math.sqrt(maxRadius);
-
-			// Check to target
-			Point targetPoint = mTargetShape.getPoint();
-			diffPoint.set(targetPoint.x - centerPoint.x, targetPoint.y - centerPoint.y);
-			int distance = (int) Math.sqrt(diffPoint.x * diffPoint.x + diffPoint.y * diffPoint.y);
-			distance += ShowcaseConfig.mTargetRadiusDefault + ShowcaseConfig.mTargetPadding;
-
-			if (distance > maxRadius) {
-				maxRadius = distance;
-			}
+			// Use the final positions, the shapes might be drawn elsewhere while morphing
+			Point centerPoint = mBackgroundShape.getTargetPoint();
+			Point targetPoint = mTargetShape.getTargetPoint();
+			int targetRadius = ShowcaseConfig.mTargetRadiusDefault + ShowcaseConfig.mTargetPadding;
+			maxRadius = ShowcaseGeometry.backgroundRadius(centerPoint.x, centerPoint.y, left, top, right, bottom, targetPoint.x, targetPoint.y, targetRadius);
 		}
 		// Fullscreen
 		else {
-			int width = getMeasuredWidth();
-			int height = getMeasuredHeight();
-			maxRadius = (int) Math.sqrt(width * width + height * height) / 2;
-			maxRadius += 10; // Some extra
+			maxRadius = ShowcaseGeometry.fullscreenRadius(getMeasuredWidth(), getMeasuredHeight());
 		}
 
 		// Background animation
 		if (mBackgroundAnimation == null && mAnimationState == AnimationStates.REVEAL) {
-			mBackgroundAnimation = new CircularShapeAnimation(ShowcaseConfig.ANIMATION_IN_TIME, 0, maxRadius, CircularAnimation.Algorithm.EASE_IN_OUT);
+			mBackgroundAnimation = clocked(new CircularShapeAnimation(ShowcaseConfig.ANIMATION_IN_TIME, 0, maxRadius, CircularAnimation.Algorithm.EASE_IN_OUT));
 			mBackgroundAnimation.start();
 		}
+		// Morph from the previous step's background
+		else if (mBackgroundAnimation == null && mAnimationState == AnimationStates.MORPH) {
+			mBackgroundAnimation = clocked(new MorphShapeAnimation(ShowcaseConfig.ANIMATION_MORPH_TIME, mMorphFromBackground.x, mMorphFromBackground.y, mMorphFromBackgroundRadius, maxRadius));
+			mBackgroundAnimation.start();
+		}
+		// Relayout after the reveal, e.g. when the target has moved
+		else if (mAnimationState == AnimationStates.DONE) {
+			mBackgroundShape.setRadius(maxRadius);
+		}
 	}
 
 	private void onAnimaitonDone() {
-		switch (mAnimationState) {
+		// Set the state first, listeners and the next sequence step may start new animations
+		AnimationStates finishedState = mAnimationState;
+		mAnimationState = AnimationStates.DONE;
+		mFrameClock.stop();
+
+		switch (finishedState) {
 			case DISMISS:
 			case TARGET_PRESSED:
-				removeFromWindow();
+				if (mSequenceHost) {
+					notifyOnDismissed();
+				} else {
+					removeFromWindow();
+				}
 				break;
 
 			case REVEAL:
+			case MORPH:
 				notifyOnDisplayed();
 				break;
 		}
+	}
 
-		mAnimationState = AnimationStates.DONE;
+	/**
+	 * Morph the target and background of this step directly into the next step. Used instead of a
+	 * dismiss and reveal by sequence hosts.
+	 * @param item the next step
+	 * @param preparedTarget the next step's target if it was prepared ahead of time, may be null
+	 */
+	void morphTo(SequenceItem item, Target preparedTarget) {
+		// Remember where to morph from
+		Point targetPoint = mTargetShape.getPoint();
+		int fromTargetX = targetPoint.x;
+		int fromTargetY = targetPoint.y;
+		int fromTargetRadius = mTargetShape.getRadius();
+		Point backgroundPoint = mBackgroundShape.getPoint();
+		mMorphFromBackground.set(backgroundPoint.x, backgroundPoint.y);
+		mMorphFromBackgroundRadius = mBackgroundShape.getRadius();
+
+		notifyListenersOnDismissed();
+
+		// Bind the next step, the sequence stays as the detached listener
+		DetachedListener detachedListener = mDetachedListener;
+		resetStep();
+		item.applyTo(this, preparedTarget);
+		mDetachedListener = detachedListener;
+		hideEmptyViews();
+
+		// Start drawing the shapes where the previous step's shapes were
+		mTargetShape.setPointOverride(fromTargetX, fromTargetY);
+		mTargetShape.setRadius(fromTargetRadius);
+		mBackgroundShape.setPointOverride(mMorphFromBackground.x, mMorphFromBackground.y);
+		mBackgroundShape.setRadius(mMorphFromBackgroundRadius);
+
+		setShouldRender(true);
+		setVisibility(VISIBLE);
+		startTrackingTarget();
+
+		mAnimationState = AnimationStates.MORPH;
+		mTargetAnimation = clocked(new MorphShapeAnimation(ShowcaseConfig.ANIMATION_MORPH_TIME, fromTargetX, fromTargetY, fromTargetRadius, ShowcaseConfig.mTargetRadiusDefault));
+		mContentBox.setAlpha(0);
+		mContentAlphaAnimation = clocked(new AlphaAnimation(ShowcaseConfig.ANIMATION_MORPH_TIME, 0, 1));
+		invalidate();
 	}
 
-	private void removeFromWindow() {
-		if (getParent() != null && getParent() instanceof ViewGroup) {
-			((ViewGroup) getParent()).removeView(this);
+	/**
+	 * Measure texts on a background thread with the same paint and width as they will be displayed
+	 * with. This fills the platform's text measurement cache so that measuring them when displayed is
+	 * cheap. Texts that have already been measured aren't measured again.
+	 * @param title title text, may be null
+	 * @param content content text, may be null
+	 * @param onPrepared called on the main thread when the texts have been measured, may be null
+	 */
+	void prepareText(CharSequence title, CharSequence content, Runnable onPrepared) {
+		TextMeasurer.Request[] texts = {
+				new TextMeasurer.Request(title, mTitleTextView.getPaint()),
+				new TextMeasurer.Request(content, mContentTextView.getPaint()),
+		};
+		TextMeasurer.prepare(getTextWidth(), texts, onPrepared);
+	}
+
+	/**
+	 * @return width available for the title and content texts, estimated from the window if the
+	 * showcase hasn't been laid out yet
+	 */
+	private int getTextWidth() {
+		int width = mContentBox.getWidth();
+		if (width <= 0 && mActivity != null) {
+			width = mActivity.getWindow().getDecorView().getWidth();
 		}
+		if (width <= 0) {
+			width = getResources().getDisplayMetrics().widthPixels;
+		}
+		return width - mContentBox.getPaddingLeft() - mContentBox.getPaddingRight();
+	}
+
+	/**
+	 * @return true if this showcase has a target, false if it's a fullscreen showcase
+	 */
+	boolean hasTarget() {
+		return mTarget != null;
+	}
+
+	/**
+	 * Keep this showcase attached after it has been dismissed so that it can be reused for the next step
+	 * of a sequence. The sequence is then responsible for calling {@link #removeFromWindow()}.
+	 * @param sequenceHost true if this showcase hosts the steps of a sequence
+	 */
+	void setSequenceHost(boolean sequenceHost) {
+		mSequenceHost = sequenceHost;
+	}
+
+	/**
+	 * Reset everything that a sequence step can set so that this showcase can be reused for the next
+	 * step. The overlay buffer, paints, and content box are kept.
+	 */
+	void resetStep() {
+		setShouldRender(false);
+		setVisibility(INVISIBLE);
+		setAlpha(1);
+		removeCallbacks(mScrollSettled);
+		mFrameClock.stop();
+		stopTrackingTarget();
+		cancelStart();
+
+		mWasDismissed = false;
+		mInitialLayoutDone = false;
+		mTargetMoved = false;
+		mAnimationState = null;
+		mTargetAnimation = null;
+		mBackgroundAnimation = null;
+		mAlphaAnimation = null;
+		mContentAlphaAnimation = null;
+		mListeners.clear();
+		setTarget((Target) null);
+		mBackgroundShape.setRadius(0);
+		mBackgroundShape.clearPointOverride();
+		mDrawnBounds.setEmpty();
+		mClippingPath.reset();
+
+		// Content
+		mContentBox.setTranslationY(0);
+		mContentBox.setAlpha(1);
+		mContentBox.setGravity(Gravity.START | Gravity.TOP);
+		Resources resources = getResources();
+		mTitleTextView.setText("");
+		mTitleTextView.setVisibility(VISIBLE);
+		mTitleTextView.setGravity(Gravity.START | Gravity.TOP);
+		mTitleTextView.setTextColor(ShowcaseConfig.getColor(resources, R.color.material_showcase_text_primary));
+		mContentTextView.setText("");
+		mContentTextView.setVisibility(VISIBLE);
+		mContentTextView.setGravity(Gravity.START | Gravity.TOP);
+		mContentTextView.setTextColor(ShowcaseConfig.getColor(resources, R.color.material_showcase_text_secondary));
+		mDismissButton.setText("");
+		mDismissButton.setVisibility(VISIBLE);
+		mDismissButton.setTextColor(ShowcaseConfig.getColor(resources, R.color.material_showcase_text_primary));
+		setDismissBackgroundColor(ShowcaseConfig.mDismissBackgroundColorDefault);
+
+		// Settings
+		setBackgroundColor(ShowcaseConfig.mBackgroundColorDefault);
+		mDelayInMillis = 0;
+		mShowWhenIdleMaxWait = -1;
+		mWaitForTargetTimeout = -1;
+		mPriority = 0;
+		mExpiryInMillis = -1;
+		mTargetTouchable = true;
+	}
+
+	/**
+	 * Drive an animation by this showcase's animation clock
+	 * @param animation the animation to drive
+	 * @return the same animation
+	 */
+	private <A extends Animation<?>> A clocked(A animation) {
+		animation.setClock(mAnimationClock);
+		mFrameClock.start();
+		return animation;
+	}
+
+	/**
+	 * Replace the clock that drives the animations, e.g. with a {@link VirtualAnimationClock} in tests
+	 * and benchmarks. Only affects animations that are created after this call.
+	 * @param animationClock clock to drive the animations with
+	 */
+	void setAnimationClock(@NonNull AnimationClock animationClock) {
+		mAnimationClock = animationClock;
+	}
+
+	void removeFromWindow() {
+		detachFromHost();
 
 		mWasDismissed = true;
 
 		if (mBitmap != null) {
-			mBitmap.recycle();
+			MaterialShowcaseDisplayer.getBufferPool().release(mBitmap);
 			mBitmap = null;
 		}
 
 		mEraser = null;
 		mCanvas = null;
-		mHandler = null;
+		cancelStart();
+		mFrameClock.stop();
+		stopTrackingTarget();
+		releaseTarget();
+		removeCallbacks(mScrollSettled);
 
 		getViewTreeObserver().removeGlobalOnLayoutListener(mLayoutListener);
 		mLayoutListener = null;
 
-		if (mPrefsGateway != null) {
-			mPrefsGateway.close();
-		}
-
 		mPrefsGateway = null;
 
-		mShowcaseDisplayer.onFinished(this);
+		getDisplayer().onFinished(this);
 	}
 
 	private void notifyOnDisplayed() {
@@ -586,6 +980,36 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 	 */
 	public void setBackgroundColor(int backgroundColor) {
 		mBackgroundColor = backgroundColor;
+		if (mBackgroundColorPaint != null) {
+			mBackgroundColorPaint.setColor(backgroundColor);
+		}
+	}
+
+	/**
+	 * Set how the dimmed background and the target hole are rendered. Defaults to {@link
+	 * RenderMode#DIRECT}.
+	 * @param renderMode how to render the showcase
+	 */
+	public void setRenderMode(@NonNull RenderMode renderMode) {
+		mRenderMode = renderMode;
+	}
+
+	/**
+	 * Set how the showcase is attached to the activity's window. Defaults to {@link
+	 * AttachMode#DECOR}. Only takes effect the next time the showcase is shown.
+	 * @param attachMode how to attach the showcase
+	 */
+	public void setAttachMode(@NonNull AttachMode attachMode) {
+		mAttachMode = attachMode;
+	}
+
+	/**
+	 * Follow targets inside scrolling containers by translating the content box while scrolling or
+	 * flinging, and only relayout once the scrolling has settled. False by default.
+	 * @param followTargetScroll true to cheaply follow a scrolling target
+	 */
+	public void setFollowTargetScroll(boolean followTargetScroll) {
+		mFollowTargetScroll = followTargetScroll;
 	}
 
 	@Override
@@ -597,6 +1021,9 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 	@Override
 	protected void onDetachedFromWindow() {
 		super.onDetachedFromWindow();
+		// Also detached when the activity's windows are removed
+		mAttachedTo = null;
+		mForwardTouches = false;
 
 		// If we're being detached from the window without the mWasDismissed flag then we weren't purposefully dismissed
 		// Probably due to an orientation change or user backed out of mActivity.
@@ -609,10 +1036,7 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 	}
 
 	private void notifyOnDismissed() {
-		for (ShowcaseListener listener : mListeners) {
-			listener.onShowcaseDismissed(this);
-		}
-		mListeners.clear();
+		notifyListenersOnDismissed();
 
 		// internal listener used by sequence for storing progress within the sequence
 		if (mDetachedListener != null) {
@@ -621,10 +1045,17 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 		}
 	}
 
+	private void notifyListenersOnDismissed() {
+		for (ShowcaseListener listener : mListeners) {
+			listener.onShowcaseDismissed(this);
+		}
+		mListeners.clear();
+	}
+
 	@Override
 	public boolean onTouch(View v, MotionEvent event) {
-		// Only handle down press
-		if (event.getAction() == MotionEvent.ACTION_DOWN) {
+		// Only handle down press, and only when we're showing
+		if (event.getAction() == MotionEvent.ACTION_DOWN && mShouldRender) {
 
 			// Don't hide on touch if hide button is visible
 			if (mDismissButton == null || mDismissButton.getVisibility() == GONE) {
@@ -635,11 +1066,8 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 				} else {
 					// Try if we touched inside the target first
 					if (mTargetTouchable) {
-						Point targetPoint = mTarget.getPoint();
-						int diffX = targetPoint.x - (int) event.getX();
-						int diffY = targetPoint.y - (int) event.getY();
-						int diffDistanceSq = diffX * diffX + diffY * diffY;
-						if (diffDistanceSq <= mTarget.getRadiusSq()) {
+						Point targetPoint = getTargetPoint();
+						if (ShowcaseGeometry.isInsideCircle(targetPoint.x, targetPoint.y, mTarget.getRadiusSq(), (int) event.getX(), (int) event.getY())) {
 							animateTargetPressed();
 							notifyOnTargetPressed();
 							return false;
@@ -648,11 +1076,8 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 
 					// Test if we touched outside the background area to hide
 					Point backgroundPoint = mBackgroundShape.getPoint();
-					int diffX = backgroundPoint.x - (int) event.getX();
-					int diffY = backgroundPoint.y - (int) event.getY();
-					int diffDistanceSq = diffX * diffX + diffY * diffY;
 					int radiusSq = mBackgroundShape.getRadius() * mBackgroundShape.getRadius();
-					if (diffDistanceSq >= radiusSq) {
+					if (!ShowcaseGeometry.isInsideCircle(backgroundPoint.x, backgroundPoint.y, radiusSq, (int) event.getX(), (int) event.getY())) {
 						hide();
 					}
 				}
@@ -667,6 +1092,13 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 	public void hide() {
 		// This flag is used to indicate to onDetachedFromWindow that the showcase view was dismissed purposefully (by the user or programmatically)
 		mWasDismissed = true;
+
+		// Let the sequence morph directly into its next step instead
+		if (mSequenceHost && mAnimationState == AnimationStates.DONE && mDetachedListener != null &&
+				mDetachedListener.onShowcaseMorphRequested(this)) {
+			return;
+		}
+
 		animateDismiss();
 	}
 
@@ -680,13 +1112,13 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 
 		int targetRadius = mTargetShape.getRadius();
 		int endRadius = (int) (targetRadius * 1.4);
-		mTargetAnimation = new CircularShapeAnimation(hideTime, targetRadius, endRadius, CircularAnimation.Algorithm.EASE_OUT);
+		mTargetAnimation = clocked(new CircularShapeAnimation(hideTime, targetRadius, endRadius, CircularAnimation.Algorithm.EASE_OUT));
 
 		int backgroundRadius = mBackgroundShape.getRadius();
 		endRadius = (int) (backgroundRadius * 1.4);
-		mBackgroundAnimation = new CircularShapeAnimation(hideTime, backgroundRadius, endRadius, CircularAnimation.Algorithm.EASE_OUT);
+		mBackgroundAnimation = clocked(new CircularShapeAnimation(hideTime, backgroundRadius, endRadius, CircularAnimation.Algorithm.EASE_OUT));
 
-		mAlphaAnimation = new AlphaAnimation(hideTime, 1, 0);
+		mAlphaAnimation = clocked(new AlphaAnimation(hideTime, 1, 0));
 
 		invalidate();
 	}
@@ -705,10 +1137,12 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 		long hideTime = ShowcaseConfig.ANIMATION_HIDE_TIME;
 		mAnimationState = AnimationStates.DISMISS;
 		if (mTargetShape != null) {
-			mTargetAnimation = new CircularShapeAnimation(hideTime, mTargetShape.getRadius(), 0, CircularAnimation.Algorithm.EASE_IN_OUT);
+			mTargetShape.clearPointOverride();
+			mTargetAnimation = clocked(new CircularShapeAnimation(hideTime, mTargetShape.getRadius(), 0, CircularAnimation.Algorithm.EASE_IN_OUT));
 		}
 		if (mBackgroundShape != null) {
-			mBackgroundAnimation = new CircularShapeAnimation(hideTime, mBackgroundShape.getRadius(), 0, CircularAnimation.Algorithm.EASE_IN_OUT);
+			mBackgroundShape.clearPointOverride();
+			mBackgroundAnimation = clocked(new CircularShapeAnimation(hideTime, mBackgroundShape.getRadius(), 0, CircularAnimation.Algorithm.EASE_IN_OUT));
 		}
 		invalidate();
 	}
@@ -737,12 +1171,38 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 	 * @param target location to showNow the circle
 	 */
 	public void setTarget(Target target) {
+		if (mTarget != target) {
+			releaseTarget();
+		}
 		mTarget = target;
 
 		if (mTarget != null) {
-			mTargetShape = new CircleShape();
+			if (mTargetShape == null) {
+				mTargetShape = new CircleShape();
+			}
 			mTargetShape.setTarget(target);
 		}
+		// Keep the shape so that it can be reused for another target
+		else if (mTargetShape != null) {
+			mTargetShape.setTarget(null);
+			mTargetShape.setRadius(0);
+			mTargetShape.clearPointOverride();
+		}
+
+		// Already showing, track the new target instead
+		if (mShouldRender) {
+			startTrackingTarget();
+			onTargetMoved(false);
+		}
+	}
+
+	/**
+	 * Stop the current target from listening to its view
+	 */
+	private void releaseTarget() {
+		if (mTarget instanceof ViewTarget) {
+			((ViewTarget) mTarget).release();
+		}
 	}
 
 	/**
@@ -879,6 +1339,27 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 		if (config.isDismissBackgroundColorSet()) {
 			setDismissBackgroundColor(config.getDismissBackgroundColor());
 		}
+		if (config.isRenderModeSet()) {
+			setRenderMode(config.getRenderMode());
+		}
+		if (config.isAttachModeSet()) {
+			setAttachMode(config.getAttachMode());
+		}
+		if (config.isFollowTargetScrollSet()) {
+			setFollowTargetScroll(config.getFollowTargetScroll());
+		}
+		if (config.isShowWhenIdleSet()) {
+			setShowWhenIdle(config.getShowWhenIdle());
+		}
+		if (config.isWaitForTargetSet()) {
+			setWaitForTarget(config.getWaitForTarget());
+		}
+		if (config.isPrioritySet()) {
+			setPriority(config.getPriority());
+		}
+		if (config.isExpirySet()) {
+			setExpiry(config.getExpiry());
+		}
 		for (ShowcaseListener showcaseListener : config.getListeners()) {
 			addListener(showcaseListener);
 		}
@@ -892,6 +1373,47 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 		mDelayInMillis = delayInMillis;
 	}
 
+	/**
+	 * Start revealing the showcase the first time the main thread is idle after the next frame has been
+	 * drawn, instead of directly. Use this instead of a fixed {@link #setDelay(long)} when calling
+	 * {@link #show()} in onCreate(), so the reveal doesn't compete with the activity's first frames. A
+	 * delay, if set, is waited for first.
+	 * @param maxWaitMillis maximum milliseconds to wait for the main thread to be idle, negative to
+	 * not wait for it
+	 */
+	public void setShowWhenIdle(long maxWaitMillis) {
+		mShowWhenIdleMaxWait = maxWaitMillis;
+	}
+
+	/**
+	 * Wait for the target view to be ready before revealing the showcase, instead of using a fixed
+	 * {@link #setDelay(long)}. The target is ready when it's attached, shown, has a size, is inside the
+	 * visible window, and hasn't moved for a couple of frames. If the target isn't ready in time the
+	 * showcase is skipped. A delay, if set, is waited for first.
+	 * @param timeoutMillis maximum milliseconds to wait for the target, negative to not wait for it
+	 */
+	public void setWaitForTarget(long timeoutMillis) {
+		mWaitForTargetTimeout = timeoutMillis;
+	}
+
+	/**
+	 * Set the priority of the showcase when it's queued behind other showcases. Showcases with higher
+	 * priority are shown first, showcases with the same priority in the order they were shown.
+	 * @param priority priority of the showcase, by default 0
+	 */
+	public void setPriority(int priority) {
+		mPriority = priority;
+	}
+
+	/**
+	 * Skip the showcase if it's still queued behind other showcases X milliseconds after calling
+	 * {@link #show()}. Skipped single use showcases aren't set as fired.
+	 * @param expiryInMillis milliseconds the showcase may wait to be shown, negative to always show it
+	 */
+	public void setExpiry(long expiryInMillis) {
+		mExpiryInMillis = expiryInMillis;
+	}
+
 	/**
 	 * Set the color of the content description. By default this is {@link
 	 * io.blushine.android.ui.showcase.R.color#material_showcase_text_secondary}
@@ -940,20 +1462,147 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 	}
 
 	/**
-	 * Reveal the showcase view.
+	 * Reveal the showcase view. Same as calling {@link #prepare()} and then {@link
+	 * PreparedShowcase#show()}.
 	 */
 	public void show() {
+		prepare().show();
+	}
+
+	/**
+	 * Prepare the showcase in the background. Looks up if a single use showcase has been shown,
+	 * measures the texts, and allocates the overlay. Call {@link PreparedShowcase#show()} on the
+	 * returned handle to show it. Must be called on the main thread after the showcase has been
+	 * configured.
+	 * @return handle to show or cancel the prepared showcase
+	 */
+	public PreparedShowcase prepare() {
+		final PreparedShowcase preparedShowcase = new PreparedShowcase(this);
+		final PrefsGateway prefsGateway = mSingleUse ? mPrefsGateway : null;
+		final int textWidth = getTextWidth();
+		final TextMeasurer.Request[] texts = {
+				new TextMeasurer.Request(mTitleTextView.getText(), mTitleTextView.getPaint()),
+				new TextMeasurer.Request(mContentTextView.getText(), mContentTextView.getPaint()),
+		};
+
+		// Only preallocate the overlay if we know the size it will be drawn with
+		final Context context = getContext().getApplicationContext();
+		final OverlayBufferPool bufferPool = MaterialShowcaseDisplayer.getBufferPool();
+		View decorView = mActivity != null ? mActivity.getWindow().getDecorView() : null;
+		final int overlayWidth = decorView != null && mRenderMode == RenderMode.BITMAP ? decorView.getWidth() : 0;
+		final int overlayHeight = decorView != null && mRenderMode == RenderMode.BITMAP ? decorView.getHeight() : 0;
+
+		ShowcaseExecutors.background().execute(new Runnable() {
+			@Override
+			public void run() {
+				final boolean fired = prefsGateway != null && prefsGateway.hasFired();
+				Bitmap buffer = null;
+				if (!fired) {
+					TextMeasurer.measure(textWidth, texts);
+					if (overlayWidth > 0 && overlayHeight > 0) {
+						buffer = bufferPool.acquire(context, overlayWidth, overlayHeight);
+					}
+				}
+
+				final Bitmap preparedBuffer = buffer;
+				ShowcaseExecutors.main().post(new Runnable() {
+					@Override
+					public void run() {
+						preparedShowcase.onPrepared(fired, preparedBuffer);
+					}
+				});
+			}
+		});
+
+		return preparedShowcase;
+	}
+
+	/**
+	 * Show a showcase that has been prepared by {@link #prepare()}
+	 * @param fired true if this is a single use showcase that has already been shown
+	 * @param buffer preallocated overlay buffer, may be null
+	 */
+	void showPrepared(boolean fired, Bitmap buffer) {
 		// if we're in single use mode and have already shot our bolt then do nothing
-		if (mSingleUse) {
-			if (mPrefsGateway.hasFired()) {
-				notifyOnSkipped();
-				return;
+		if (fired) {
+			notifyOnSkipped();
+			return;
+		}
+
+		// The fired state is written when the reveal has been posted
+		mPrepared = true;
+
+		if (buffer != null) {
+			if (mBitmap == null) {
+				mBitmap = buffer;
 			} else {
-				mPrefsGateway.setFired();
+				releaseBuffer(buffer);
 			}
 		}
 
-		mShowcaseDisplayer.enqueue(this);
+		long deadline = mExpiryInMillis >= 0 ? SystemClock.uptimeMillis() + mExpiryInMillis : ShowcaseQueue.NO_DEADLINE;
+		getDisplayer().enqueue(this, mShowcaseId, mPriority, deadline);
+	}
+
+	/**
+	 * Called by the displayer when this showcase won't be shown
+	 * @param reset true if it was queued past its expiry time or its activity was destroyed, false if a
+	 * showcase with the same id is already shown or queued
+	 */
+	void onDropped(boolean reset) {
+		mPrepared = false;
+
+		// Wasn't shown, make sure it can be shown the next time
+		if (reset && mSingleUse && mPrefsGateway != null) {
+			mPrefsGateway.resetShowcase();
+		}
+
+		if (mBitmap != null) {
+			releaseBuffer(mBitmap);
+			mBitmap = null;
+		}
+
+		notifyOnSkipped();
+	}
+
+	/**
+	 * Called by the displayer when the activity is destroyed while this showcase is shown or waiting to
+	 * be shown. Cancels everything that is pending and removes this showcase from the window without
+	 * notifying the displayer or a sequence, so that nothing keeps the activity alive.
+	 */
+	void onActivityDestroyed() {
+		mPrepared = false;
+		mDetachedListener = null;
+		cancelStart();
+		mFrameClock.stop();
+		stopTrackingTarget();
+		releaseTarget();
+		removeCallbacks(mScrollSettled);
+
+		if (mBitmap != null) {
+			releaseBuffer(mBitmap);
+			mBitmap = null;
+		}
+
+		// Not dismissed, so a single use showcase is reset when it's detached
+		if (mAttachedTo != null) {
+			detachFromHost();
+		}
+	}
+
+	/**
+	 * @return displayer of the activity this showcase is shown in
+	 */
+	private MaterialShowcaseDisplayer getDisplayer() {
+		return MaterialShowcaseDisplayer.forActivity(mActivity);
+	}
+
+	/**
+	 * Return a preallocated overlay buffer that won't be used
+	 * @param buffer the overlay buffer
+	 */
+	void releaseBuffer(Bitmap buffer) {
+		MaterialShowcaseDisplayer.getBufferPool().release(buffer);
 	}
 
 	@Override
@@ -969,6 +1618,7 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 	 */
 	public void setSingleUse(@NonNull String showcaseId) {
 		mSingleUse = true;
+		mShowcaseId = showcaseId;
 		mPrefsGateway = new PrefsGateway(getContext(), showcaseId);
 	}
 
@@ -978,21 +1628,113 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 	@Override
 	public void _showNow() {
 		if (mActivity != null) {
-			mHandler = new Handler();
-			mHandler.postDelayed(new Runnable() {
-				@Override
-				public void run() {
-					((ViewGroup) mActivity.getWindow().getDecorView()).addView(MaterialShowcaseView.this);
-					bringToFront();
+			mShowAtMillis = SystemClock.uptimeMillis() + mDelayInMillis;
+			if (mShowWhenIdleMaxWait >= 0) {
+				mIdleStarter = new IdleStarter(mHandler, mAttachAndReveal, mShowWhenIdleMaxWait);
+			}
+			if (mWaitForTargetTimeout >= 0 && mTarget instanceof ViewTarget) {
+				mTargetReadyWaiter = new TargetReadyWaiter((ViewTarget) mTarget, mWaitForTargetTimeout, mTargetReadyListener);
+			}
 
-					hideEmptyViews();
-					fixNavBarMargin();
+			mStartPending = true;
+			// Texts have been measured already if the showcase was prepared
+			if (mPrepared) {
+				postStart();
+			} else {
+				// Measure the texts in the background while waiting for the delay
+				prepareText(mTitleTextView.getText(), mContentTextView.getText(), mPostStart);
+			}
+		} else {
+			getDisplayer().onFinished(this);
+		}
+	}
 
-					animateReveal();
-				}
-			}, mDelayInMillis);
+	/**
+	 * Post the start of the reveal, then set a prepared single use showcase as fired. The state is
+	 * written after the reveal has been posted so that the write doesn't delay it. Does nothing if the
+	 * start has already been posted or was cancelled.
+	 */
+	private void postStart() {
+		if (!mStartPending) {
+			return;
+		}
+		mStartPending = false;
+		mHandler.postAtTime(mStart, mShowAtMillis);
+		if (mPrepared) {
+			mPrepared = false;
+			if (mSingleUse && mPrefsGateway != null) {
+				mPrefsGateway.setFired();
+			}
+		}
+	}
+
+	/**
+	 * Reveal this showcase the next time the main thread is idle if set, otherwise right away
+	 */
+	private void reveal() {
+		if (mIdleStarter != null) {
+			mIdleStarter.start();
 		} else {
-			mShowcaseDisplayer.onFinished(this);
+			attachAndReveal();
+		}
+	}
+
+	private void attachAndReveal() {
+		mIdleStarter = null;
+
+		// Sequence hosts are already attached and sized when showing the next step
+		if (mAttachedTo == null) {
+			attachToHost();
+			fixNavBarMargin();
+		} else if (mAttachedTo == AttachMode.DECOR && !isTopChild()) {
+			bringToFront();
+		}
+
+		hideEmptyViews();
+		animateReveal();
+	}
+
+	/**
+	 * @return true if this showcase is drawn above all other views of its parent
+	 */
+	private boolean isTopChild() {
+		ViewGroup parent = (ViewGroup) getParent();
+		return parent == null || parent.getChildAt(parent.getChildCount() - 1) == this;
+	}
+
+	/**
+	 * Cancel a start that is waiting for the texts, the delay, the target, or the main thread to be idle
+	 */
+	private void cancelStart() {
+		mStartPending = false;
+		mHandler.removeCallbacks(mStart);
+		if (mIdleStarter != null) {
+			mIdleStarter.cancel();
+			mIdleStarter = null;
+		}
+		cancelWaitForTarget();
+	}
+
+	/**
+	 * Skip this showcase because its target wasn't ready in time
+	 */
+	private void onTargetNotReady() {
+		// Wasn't shown, make sure it can be shown the next time
+		if (mSingleUse && mPrefsGateway != null) {
+			mPrefsGateway.resetShowcase();
+		}
+
+		// A sequence continues with its next step
+		mWasDismissed = true;
+		cancelStart();
+		notifyOnSkipped();
+		getDisplayer().onFinished(this);
+	}
+
+	private void cancelWaitForTarget() {
+		if (mTargetReadyWaiter != null) {
+			mTargetReadyWaiter.cancel();
+			mTargetReadyWaiter = null;
 		}
 	}
 
@@ -1018,22 +1760,105 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 		}
 	}
 
+	/**
+	 * Attach this showcase to the activity's window according to the attach mode
+	 */
+	private void attachToHost() {
+		View decorView = mActivity.getWindow().getDecorView();
+
+		// A panel needs the token of an attached window, fall back to the decor view until then
+		if (mAttachMode == AttachMode.PANEL && decorView.getWindowToken() != null) {
+			mActivity.getWindowManager().addView(this, createPanelLayoutParams(decorView));
+			mAttachedTo = AttachMode.PANEL;
+		} else {
+			((ViewGroup) decorView).addView(this);
+			mAttachedTo = AttachMode.DECOR;
+		}
+	}
+
+	/**
+	 * Remove this showcase from the window it was attached to
+	 */
+	private void detachFromHost() {
+		if (mAttachedTo == AttachMode.PANEL) {
+			// Immediate so that this showcase is detached when returning, same as with the decor view
+			mActivity.getWindowManager().removeViewImmediate(this);
+		} else if (getParent() != null && getParent() instanceof ViewGroup) {
+			((ViewGroup) getParent()).removeView(this);
+		}
+		mAttachedTo = null;
+		mForwardTouches = false;
+	}
+
+	private WindowManager.LayoutParams createPanelLayoutParams(View decorView) {
+		WindowManager.LayoutParams layoutParams = new WindowManager.LayoutParams(
+				WindowManager.LayoutParams.TYPE_APPLICATION_PANEL,
+				WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN | WindowManager.LayoutParams.FLAG_LAYOUT_NO_LIMITS,
+				PixelFormat.TRANSLUCENT);
+		layoutParams.token = decorView.getWindowToken();
+		layoutParams.gravity = Gravity.START | Gravity.TOP;
+		layoutParams.setTitle(TAG);
+		return layoutParams;
+	}
+
+	@Override
+	public boolean dispatchTouchEvent(MotionEvent event) {
+		// Touches on the target pass through to the views below. A panel is a window of its own, so its
+		// touches have to be forwarded to the activity's window instead.
+		if (mForwardTouches) {
+			forwardTouchEvent(event);
+			return true;
+		}
+
+		boolean handled = super.dispatchTouchEvent(event);
+		if (!handled && mAttachedTo == AttachMode.PANEL && event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+			mForwardTouches = true;
+			forwardTouchEvent(event);
+			return true;
+		}
+		return handled;
+	}
+
+	private void forwardTouchEvent(MotionEvent event) {
+		int action = event.getActionMasked();
+		if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+			mForwardTouches = false;
+		}
+
+		// Translate from this window's coordinates to the activity window's
+		View decorView = mActivity.getWindow().getDecorView();
+		getLocationOnScreen(mLocation);
+		int offsetX = mLocation[0];
+		int offsetY = mLocation[1];
+		decorView.getLocationOnScreen(mLocation);
+
+		MotionEvent forwardedEvent = MotionEvent.obtain(event);
+		forwardedEvent.offsetLocation(offsetX - mLocation[0], offsetY - mLocation[1]);
+		mActivity.dispatchTouchEvent(forwardedEvent);
+		forwardedEvent.recycle();
+	}
+
 	private void fixNavBarMargin() {
 		// If we're on lollipop then make sure we don't draw over the nav bar
 		if (!mRenderOverNav && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+			// A panel's layout params belong to the window manager, shrink the window instead
+			if (mAttachedTo == AttachMode.PANEL) {
+				fixPanelNavBarSize();
+				return;
+			}
+
 			LayoutParams contentLP = (LayoutParams) getLayoutParams();
 
 			if (contentLP != null) {
 				int bottomMargin = getSoftButtonsBarSizePort((Activity) getContext());
 				int rightMargin = getSoftButtonsBarHorizontalSizePort((Activity) getContext());
 
-				if (contentLP.bottomMargin != bottomMargin) {
+				// Changing the layout params requests a layout of the whole window
+				if (contentLP.bottomMargin != bottomMargin || contentLP.rightMargin != rightMargin) {
 					contentLP.bottomMargin = bottomMargin;
-				}
-				if (contentLP.rightMargin != rightMargin) {
 					contentLP.rightMargin = rightMargin;
+					setLayoutParams(contentLP);
 				}
-				setLayoutParams(contentLP);
 			}
 		}
 	}
@@ -1045,10 +1870,25 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 	private void animateReveal() {
 		setShouldRender(true);
 		setVisibility(VISIBLE);
+		startTrackingTarget();
 
 		mAnimationState = AnimationStates.REVEAL;
 		if (mTarget != null) {
-			mTargetAnimation = new CircularShapeAnimation(ShowcaseConfig.ANIMATION_IN_TIME, 0, ShowcaseConfig.mTargetRadiusDefault, CircularAnimation.Algorithm.EASE_IN_OUT);
+			mTargetAnimation = clocked(new CircularShapeAnimation(ShowcaseConfig.ANIMATION_IN_TIME, 0, ShowcaseConfig.mTargetRadiusDefault, CircularAnimation.Algorithm.EASE_IN_OUT));
+		}
+	}
+
+	private void fixPanelNavBarSize() {
+		WindowManager.LayoutParams layoutParams = (WindowManager.LayoutParams) getLayoutParams();
+		DisplayMetrics metrics = new DisplayMetrics();
+		mActivity.getWindowManager().getDefaultDisplay().getRealMetrics(metrics);
+		int width = metrics.widthPixels - getSoftButtonsBarHorizontalSizePort(mActivity);
+		int height = metrics.heightPixels - getSoftButtonsBarSizePort(mActivity);
+
+		if (layoutParams.width != width || layoutParams.height != height) {
+			layoutParams.width = width;
+			layoutParams.height = height;
+			mActivity.getWindowManager().updateViewLayout(this, layoutParams);
 		}
 	}
 
@@ -1118,10 +1958,38 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 		}
 	}
 
+	/**
+	 * How the showcase background and target hole is rendered
+	 */
+	public enum RenderMode {
+		/** Draw the background with the target cut out directly on the view's canvas */
+		DIRECT,
+		/**
+		 * Draw into a full-screen offscreen bitmap and erase the target from it. Uses a lot more memory,
+		 * only use this for effects that really need an offscreen buffer.
+		 */
+		BITMAP,
+	}
+
+	/**
+	 * How the showcase is attached to the activity's window
+	 */
+	public enum AttachMode {
+		/** Add the showcase as a child of the activity's decor view */
+		DECOR,
+		/**
+		 * Show the showcase in a panel window on top of the activity's window. Showing and hiding the
+		 * showcase then doesn't relayout the activity's views. Falls back to {@link #DECOR} if the
+		 * activity's window isn't attached yet.
+		 */
+		PANEL,
+	}
+
 	private enum AnimationStates {
 		REVEAL,
 		DISMISS,
 		TARGET_PRESSED,
+		MORPH,
 		DONE,
 	}
 
@@ -1329,6 +2197,75 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 			return this;
 		}
 
+		/**
+		 * Set how the dimmed background and the target hole are rendered. Defaults to {@link
+		 * RenderMode#DIRECT}.
+		 * @param renderMode how to render the showcase
+		 */
+		public Builder setRenderMode(@NonNull RenderMode renderMode) {
+			mShowcaseView.setRenderMode(renderMode);
+			return this;
+		}
+
+		/**
+		 * Set how the showcase is attached to the activity's window. Defaults to {@link
+		 * AttachMode#DECOR}.
+		 * @param attachMode how to attach the showcase
+		 */
+		public Builder setAttachMode(@NonNull AttachMode attachMode) {
+			mShowcaseView.setAttachMode(attachMode);
+			return this;
+		}
+
+		/**
+		 * Start revealing the showcase the first time the main thread is idle after the next frame has
+		 * been drawn. Use this instead of {@link #setDelay(int)} when calling show() in onCreate().
+		 * @param maxWaitMillis maximum milliseconds to wait for the main thread to be idle
+		 */
+		public Builder showWhenIdle(long maxWaitMillis) {
+			mShowcaseView.setShowWhenIdle(maxWaitMillis);
+			return this;
+		}
+
+		/**
+		 * Wait for the target view to be attached, visible, and stable before revealing the showcase. The
+		 * showcase is skipped if the target isn't ready in time.
+		 * @param timeoutMillis maximum milliseconds to wait for the target
+		 */
+		public Builder waitForTarget(long timeoutMillis) {
+			mShowcaseView.setWaitForTarget(timeoutMillis);
+			return this;
+		}
+
+		/**
+		 * Set the priority of the showcase when it's queued behind other showcases. Showcases with higher
+		 * priority are shown first. Defaults to 0.
+		 * @param priority priority of the showcase
+		 */
+		public Builder setPriority(int priority) {
+			mShowcaseView.setPriority(priority);
+			return this;
+		}
+
+		/**
+		 * Skip the showcase if it's still queued behind other showcases X milliseconds after calling
+		 * {@link #show()}
+		 * @param expiryInMillis milliseconds the showcase may wait to be shown
+		 */
+		public Builder setExpiry(long expiryInMillis) {
+			mShowcaseView.setExpiry(expiryInMillis);
+			return this;
+		}
+
+		/**
+		 * Follow targets inside scrolling containers by translating the content box while scrolling or
+		 * flinging, and only relayout once the scrolling has settled.
+		 */
+		public Builder followTargetScroll() {
+			mShowcaseView.setFollowTargetScroll(true);
+			return this;
+		}
+
 		/**
 		 * Render above the navigation bar. Only has an effect in Lollipop or above.
 		 */
@@ -1346,6 +2283,15 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 			return mShowcaseView;
 		}
 
+		/**
+		 * Build and prepare the showcase in the background
+		 * @return handle to show or cancel the prepared showcase
+		 * @see MaterialShowcaseView#prepare()
+		 */
+		public PreparedShowcase prepare() {
+			return build().prepare();
+		}
+
 		/**
 		 * Build the showcase
 		 * @return created showcase view
@@ -1356,13 +2302,16 @@ public class MaterialShowcaseView extends FrameLayout implements View.OnTouchLis
 	}
 
 	/**
-	 * REDRAW LISTENER - this ensures we redraw after mActivity finishes laying out
+	 * REDRAW LISTENER - this ensures we redraw after mActivity finishes laying out. Tracked targets are
+	 * updated by the {@link TargetTracker} instead.
 	 */
 	private class UpdateOnGlobalLayout implements ViewTreeObserver.OnGlobalLayoutListener {
 
 		@Override
 		public void onGlobalLayout() {
-			setTarget(mTarget);
+			if (mTarget != null && !mTargetTracked) {
+				invalidate();
+			}
 		}
 	}
 }
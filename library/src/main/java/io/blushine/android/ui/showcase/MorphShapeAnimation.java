@@ -0,0 +1,42 @@
+package io.blushine.android.ui.showcase;
+
+import android.graphics.Point;
+
+/**
+ * Morphs a circle shape from one position and radius to its target's position and a new radius
+ */
+class MorphShapeAnimation extends CircularAnimation<CircleShape> {
+private final int mFromX;
+private final int mFromY;
+
+/**
+ * Morph a circle shape to its target
+ * @param duration length of the animation
+ * @param fromX x-coordinate of the center to morph from
+ * @param fromY y-coordinate of the center to morph from
+ * @param startRadius radius to morph from
+ * @param endRadius radius to morph to
+ */
+MorphShapeAnimation(long duration, int fromX, int fromY, int startRadius, int endRadius) {
+	super(duration, startRadius, endRadius, Algorithm.EASE_IN_OUT);
+	mFromX = fromX;
+	mFromY = fromY;
+}
+
+@Override
+protected void onUpdate(CircleShape circleShape) {
+	circleShape.setRadius(getCurrentRadius());
+
+	if (getRemainingTime() > 0) {
+		// Follow the target while morphing in case it moves
+		Point toPoint = circleShape.getTargetPoint();
+		if (toPoint != null) {
+			int x = (int) interpolationEaseInOut(mFromX, toPoint.x);
+			int y = (int) interpolationEaseInOut(mFromY, toPoint.y);
+			circleShape.setPointOverride(x, y);
+		}
+	} else {
+		circleShape.clearPointOverride();
+	}
+}
+}
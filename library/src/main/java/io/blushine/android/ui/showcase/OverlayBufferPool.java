@@ -0,0 +1,141 @@
+package io.blushine.android.ui.showcase;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pool of full-screen overlay buffers shared between showcases. Buffers are reused across showcases and
+ * sequence steps and are reconfigured on size changes (e.g. rotation) instead of being reallocated.
+ * Buffers may be acquired on a background thread when a showcase is prepared.
+ */
+class OverlayBufferPool implements ComponentCallbacks2 {
+private static final Bitmap.Config BITMAP_CONFIG = Bitmap.Config.ARGB_8888;
+private static final int BYTES_PER_PIXEL = 4;
+private static final int MAX_POOLED_BUFFERS = 2;
+private final List<Bitmap> mFreeBuffers = new ArrayList<>();
+private Context mCallbacksContext = null;
+
+/**
+ * Get a buffer of the specified size. Reuses the smallest pooled buffer that is large enough, or
+ * allocates a new one if there is none.
+ * @param context used to listen to memory trim events
+ * @param width width of the buffer
+ * @param height height of the buffer
+ * @return a mutable buffer with the specified size
+ */
+synchronized Bitmap acquire(Context context, int width, int height) {
+	registerCallbacks(context);
+
+	int requiredBytes = width * height * BYTES_PER_PIXEL;
+	int bestIndex = -1;
+	int bestBytes = Integer.MAX_VALUE;
+	for (int i = mFreeBuffers.size() - 1; i >= 0; i--) {
+		Bitmap buffer = mFreeBuffers.get(i);
+		if (buffer.isRecycled()) {
+			mFreeBuffers.remove(i);
+			continue;
+		}
+
+		int bytes = buffer.getAllocationByteCount();
+		if (bytes >= requiredBytes && bytes < bestBytes) {
+			bestIndex = i;
+			bestBytes = bytes;
+		}
+	}
+
+	if (bestIndex >= 0) {
+		Bitmap buffer = mFreeBuffers.remove(bestIndex);
+		reconfigure(buffer, width, height);
+		return buffer;
+	}
+
+	return Bitmap.createBitmap(width, height, BITMAP_CONFIG);
+}
+
+/**
+ * Resize a buffer that is in use. Reconfigures it in place if its allocation is large enough,
+ * otherwise it's returned to the pool and a new buffer is acquired.
+ * @param context used to listen to memory trim events
+ * @param buffer the buffer currently in use
+ * @param width new width
+ * @param height new height
+ * @return buffer with the new size, may be the same instance as {@code buffer}
+ */
+synchronized Bitmap resize(Context context, Bitmap buffer, int width, int height) {
+	if (buffer.getWidth() == width && buffer.getHeight() == height) {
+		return buffer;
+	}
+
+	if (!buffer.isRecycled() && buffer.getAllocationByteCount() >= width * height * BYTES_PER_PIXEL) {
+		reconfigure(buffer, width, height);
+		return buffer;
+	}
+
+	release(buffer);
+	return acquire(context, width, height);
+}
+
+private static void reconfigure(Bitmap buffer, int width, int height) {
+	if (buffer.getWidth() != width || buffer.getHeight() != height) {
+		buffer.reconfigure(width, height, BITMAP_CONFIG);
+	}
+}
+
+/**
+ * Return a buffer to the pool
+ * @param buffer the buffer that isn't used anymore
+ */
+synchronized void release(Bitmap buffer) {
+	if (buffer == null || buffer.isRecycled()) {
+		return;
+	}
+
+	if (mFreeBuffers.size() < MAX_POOLED_BUFFERS) {
+		mFreeBuffers.add(buffer);
+	} else {
+		buffer.recycle();
+	}
+}
+
+/**
+ * Free all pooled buffers. Buffers currently in use by a showcase aren't affected.
+ */
+synchronized void clear() {
+	for (Bitmap buffer : mFreeBuffers) {
+		buffer.recycle();
+	}
+	mFreeBuffers.clear();
+
+	if (mCallbacksContext != null) {
+		mCallbacksContext.unregisterComponentCallbacks(this);
+		mCallbacksContext = null;
+	}
+}
+
+private synchronized void registerCallbacks(Context context) {
+	if (mCallbacksContext == null) {
+		mCallbacksContext = context.getApplicationContext();
+		mCallbacksContext.registerComponentCallbacks(this);
+	}
+}
+
+@Override
+public void onTrimMemory(int level) {
+	clear();
+}
+
+@Override
+public void onConfigurationChanged(Configuration newConfig) {
+	// Buffers are reconfigured when they're acquired
+}
+
+@Override
+public void onLowMemory() {
+	clear();
+}
+}
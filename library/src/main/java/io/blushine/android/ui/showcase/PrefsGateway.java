@@ -1,21 +1,29 @@
 package io.blushine.android.ui.showcase;
 
 import android.content.Context;
-import android.content.SharedPreferences;
 import android.support.annotation.NonNull;
 
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Reads and writes the state of a showcase or sequence through the process-wide {@link
+ * ShowcaseStateCache} and the {@link io.blushine.android.ui.showcase.state.ShowcaseStateStore} behind
+ * it
+ */
 class PrefsGateway {
 
 	static final int SEQUENCE_NEVER_STARTED = 0;
 	static final int SEQUENCE_FINISHED = -1;
-	private static final String PREFS_NAME = "material_showcaseview_prefs";
-	private static final String STATUS = "status_";
-	private String mShowcaseId;
-	private Context mContext;
+	private final String mShowcaseId;
+	// Application context, so it can be kept after the showcase or sequence is gone
+	private final Context mContext;
 
 	public PrefsGateway(Context context, @NonNull String showcaseId) {
-		mContext = context;
+		mContext = context.getApplicationContext();
 		mShowcaseId = showcaseId;
+		// Start loading the states
+		getCache(context);
 	}
 
 	/**
@@ -23,12 +31,11 @@ class PrefsGateway {
 	 * @param context current context in the activity
 	 */
 	static void resetAll(Context context) {
-		SharedPreferences internal = getPrefs(context);
-		internal.edit().clear().apply();
+		getCache(context).clear();
 	}
 
-	private static SharedPreferences getPrefs(Context context) {
-		return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+	private static ShowcaseStateCache getCache(Context context) {
+		return ShowcaseStateCache.getInstance(context);
 	}
 
 	/**
@@ -37,12 +44,12 @@ class PrefsGateway {
 	 * @param showcaseId the showcase to set as fired
 	 */
 	static void setFired(Context context, String showcaseId) {
-		setSequenceStatus(context, showcaseId, SEQUENCE_FINISHED);
+		// Written directly so that the showcase isn't shown again if the app is killed
+		getCache(context).setStatus(showcaseId, SEQUENCE_FINISHED, true);
 	}
 
 	static void setSequenceStatus(Context context, @NonNull String showcaseId, int position) {
-		SharedPreferences internal = getPrefs(context);
-		internal.edit().putInt(STATUS + showcaseId, position).apply();
+		getCache(context).setStatus(showcaseId, position, false);
 	}
 
 	/***
@@ -64,14 +71,42 @@ class PrefsGateway {
 		return (status == SEQUENCE_FINISHED);
 	}
 
+	/**
+	 * Check which of several showcases have been fired
+	 * @param context application context
+	 * @param showcaseIds the showcases to check
+	 * @param out bit i is set if showcaseIds[i] has been fired and cleared otherwise
+	 */
+	static void hasFired(Context context, @NonNull String[] showcaseIds, @NonNull BitSet out) {
+		getCache(context).hasStatus(showcaseIds, SEQUENCE_FINISHED, out, SEQUENCE_NEVER_STARTED);
+	}
+
+	/**
+	 * Get all showcases in a namespace that have been fired
+	 * @param context application context
+	 * @param namespace start of the showcase ids, e.g. "onboarding/"
+	 * @param out ids of the fired showcases are added to this collection
+	 */
+	static void getFired(Context context, @NonNull String namespace, @NonNull Collection<String> out) {
+		getCache(context).getIdsWithStatus(namespace, SEQUENCE_FINISHED, out);
+	}
+
+	/**
+	 * Reset all showcases in a namespace
+	 * @param context application context
+	 * @param namespace start of the showcase ids, e.g. "onboarding/"
+	 */
+	static void resetNamespace(Context context, @NonNull String namespace) {
+		getCache(context).setStatusWithPrefix(namespace, SEQUENCE_NEVER_STARTED);
+	}
+
 	/**
 	 * Check if a sequence showcase has fired and how many showcases it has fired in that case
 	 * @return number of showcases fired, {@link #SEQUENCE_NEVER_STARTED} if it hasn't started,or {@link #SEQUENCE_FINISHED}
 	 * the entire sequence has finished.
 	 */
 	static int getSequenceStatus(Context context, @NonNull String showcaseId) {
-		return getPrefs(context)
-				.getInt(STATUS + showcaseId, SEQUENCE_NEVER_STARTED);
+		return getCache(context).getStatus(showcaseId, SEQUENCE_NEVER_STARTED);
 	}
 
 	/**
@@ -95,7 +130,7 @@ class PrefsGateway {
 	 * Sets the showcase or sequence as fired
 	 */
 	void setFired() {
-		setSequenceStatus(SEQUENCE_FINISHED);
+		setFired(mContext, mShowcaseId);
 	}
 
 	/**
@@ -111,11 +146,6 @@ class PrefsGateway {
 	 * @param showcaseId the showcase to reset
 	 */
 	static void resetShowcase(Context context, @NonNull String showcaseId) {
-		SharedPreferences internal = getPrefs(context);
-		internal.edit().putInt(STATUS + showcaseId, SEQUENCE_NEVER_STARTED).apply();
-	}
-
-	public void close() {
-		mContext = null;
+		getCache(context).setStatus(showcaseId, SEQUENCE_NEVER_STARTED, false);
 	}
 }
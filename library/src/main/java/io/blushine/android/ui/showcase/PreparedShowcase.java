@@ -0,0 +1,94 @@
+package io.blushine.android.ui.showcase;
+
+import android.graphics.Bitmap;
+
+/**
+ * Handle to a showcase that is being prepared in the background. The single use state is looked up,
+ * the texts measured, and the overlay allocated before the showcase is shown, so that showing it only
+ * needs to attach it and draw the first frame. Create it with {@link MaterialShowcaseView#prepare()}.
+ * Must only be used on the main thread.
+ */
+public final class PreparedShowcase {
+private final MaterialShowcaseView mShowcaseView;
+private boolean mPrepared = false;
+private boolean mFired = false;
+private Bitmap mBuffer = null;
+private boolean mShowRequested = false;
+private boolean mCancelled = false;
+
+PreparedShowcase(MaterialShowcaseView showcaseView) {
+	mShowcaseView = showcaseView;
+}
+
+/**
+ * Called on the main thread when the background preparation is done
+ * @param fired true if this is a single use showcase that has already been shown
+ * @param buffer the preallocated overlay buffer, may be null
+ */
+void onPrepared(boolean fired, Bitmap buffer) {
+	mPrepared = true;
+	mFired = fired;
+	mBuffer = buffer;
+
+	if (mCancelled) {
+		releaseBuffer();
+	} else if (mShowRequested) {
+		showPrepared();
+	}
+}
+
+/**
+ * Show the showcase when it has been prepared. If it's single use and has already been shown it will
+ * be skipped instead. If there is another showcase active it will be enqueued.
+ */
+public void show() {
+	if (mCancelled || mShowRequested) {
+		return;
+	}
+
+	mShowRequested = true;
+	if (mPrepared) {
+		showPrepared();
+	}
+}
+
+private void showPrepared() {
+	Bitmap buffer = mBuffer;
+	mBuffer = null;
+	mShowcaseView.showPrepared(mFired, buffer);
+}
+
+/**
+ * Cancel the showcase if it hasn't been shown yet and release everything that has been prepared for
+ * it. Has no effect if the showcase has already been shown.
+ */
+public void cancel() {
+	if (mShowRequested && mPrepared) {
+		return;
+	}
+
+	mCancelled = true;
+	releaseBuffer();
+}
+
+private void releaseBuffer() {
+	if (mBuffer != null) {
+		mShowcaseView.releaseBuffer(mBuffer);
+		mBuffer = null;
+	}
+}
+
+/**
+ * @return true if the showcase has been prepared and is ready to be shown
+ */
+public boolean isPrepared() {
+	return mPrepared;
+}
+
+/**
+ * @return the showcase that is prepared
+ */
+public MaterialShowcaseView getShowcaseView() {
+	return mShowcaseView;
+}
+}
@@ -0,0 +1,139 @@
+package io.blushine.android.ui.showcase;
+
+import android.app.Activity;
+import android.support.annotation.NonNull;
+import android.view.View;
+
+import io.blushine.android.ui.showcase.target.Target;
+import io.blushine.android.ui.showcase.target.ViewTarget;
+
+/**
+ * Immutable description of a step in a {@link MaterialShowcaseSequence}. The step is applied to the
+ * sequence's host showcase when it's about to be displayed, unless it wraps a prebuilt showcase.
+ */
+final class SequenceItem {
+	private final View mTargetView;
+	private final int mTargetViewId;
+	private final CharSequence mTitle;
+	private final CharSequence mContent;
+	private final CharSequence mDismissText;
+	private final ShowcaseConfig mConfig;
+	private final MaterialShowcaseView mShowcaseView;
+
+	/**
+	 * Describe a step that is built when it's displayed
+	 * @param targetView view to showcase, null for a fullscreen showcase
+	 * @param title title text, may be null
+	 * @param content content text, may be null
+	 * @param dismissText dismiss button text, may be null
+	 * @param config configuration to apply to the step, may be null. Is copied so that later changes
+	 * don't affect this step.
+	 */
+	SequenceItem(View targetView, CharSequence title, CharSequence content, CharSequence dismissText, ShowcaseConfig config) {
+		this(targetView, View.NO_ID, title, content, dismissText, config);
+	}
+
+	/**
+	 * Describe a step that targets a view by its id. The view is looked up when the step is displayed.
+	 * @param targetViewId id of the view to showcase
+	 * @param title title text, may be null
+	 * @param content content text, may be null
+	 * @param dismissText dismiss button text, may be null
+	 * @param config configuration to apply to the step, may be null
+	 */
+	SequenceItem(int targetViewId, CharSequence title, CharSequence content, CharSequence dismissText, ShowcaseConfig config) {
+		this(null, targetViewId, title, content, dismissText, config);
+	}
+
+	private SequenceItem(View targetView, int targetViewId, CharSequence title, CharSequence content, CharSequence dismissText, ShowcaseConfig config) {
+		mTargetView = targetView;
+		mTargetViewId = targetViewId;
+		mTitle = title;
+		mContent = content;
+		mDismissText = dismissText;
+		mConfig = config != null ? new ShowcaseConfig(config) : null;
+		mShowcaseView = null;
+	}
+
+	/**
+	 * Wrap a showcase that has already been built
+	 * @param showcaseView the prebuilt showcase
+	 */
+	SequenceItem(@NonNull MaterialShowcaseView showcaseView) {
+		mTargetView = null;
+		mTargetViewId = View.NO_ID;
+		mTitle = null;
+		mContent = null;
+		mDismissText = null;
+		mConfig = null;
+		mShowcaseView = showcaseView;
+	}
+
+	/**
+	 * @return true if the showcase of this step was built by the user
+	 */
+	boolean isPrebuilt() {
+		return mShowcaseView != null;
+	}
+
+	/**
+	 * @return true if this step showcases a target, false if it's a fullscreen step
+	 */
+	boolean hasTarget() {
+		return mTargetView != null || mTargetViewId != View.NO_ID || (mShowcaseView != null && mShowcaseView.hasTarget());
+	}
+
+	CharSequence getTitle() {
+		return mTitle;
+	}
+
+	CharSequence getContent() {
+		return mContent;
+	}
+
+	/**
+	 * Create the target of this step
+	 * @param activity the activity to look up the target view in
+	 * @return target of this step, null if it's a fullscreen or prebuilt step
+	 */
+	Target createTarget(Activity activity) {
+		if (mTargetView != null) {
+			return new ViewTarget(mTargetView);
+		} else if (mTargetViewId != View.NO_ID) {
+			return new ViewTarget(mTargetViewId, activity);
+		}
+		return null;
+	}
+
+	/**
+	 * @return the prebuilt showcase of this step, null if the step is applied to the host instead
+	 */
+	MaterialShowcaseView getShowcaseView() {
+		return mShowcaseView;
+	}
+
+	/**
+	 * Set the target, texts, and configuration of this step on a showcase. Not used for prebuilt steps.
+	 * @param showcaseView the showcase to apply this step to
+	 * @param preparedTarget target created by {@link #createTarget(Activity)} ahead of time, null to create it
+	 * now
+	 */
+	void applyTo(MaterialShowcaseView showcaseView, Target preparedTarget) {
+		Target target = preparedTarget != null ? preparedTarget : createTarget((Activity) showcaseView.getContext());
+		if (target != null) {
+			showcaseView.setTarget(target);
+		}
+		if (mTitle != null) {
+			showcaseView.setTitleText(mTitle);
+		}
+		if (mContent != null) {
+			showcaseView.setContentText(mContent);
+		}
+		if (mDismissText != null) {
+			showcaseView.setDismissText(mDismissText);
+		}
+		if (mConfig != null) {
+			showcaseView.setConfig(mConfig);
+		}
+	}
+}
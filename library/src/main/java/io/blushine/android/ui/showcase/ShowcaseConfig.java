@@ -14,6 +14,7 @@ public class ShowcaseConfig {
 	static final long ANIMATION_IN_TIME = 300;
 	static final long ANIMATION_HIDE_TIME = 300;
 	static final long ANIMATION_PRESSED_TIME = 300;
+	static final long ANIMATION_MORPH_TIME = 300;
 	static int mBackgroundColorDefault = -1;
 	static int mDismissBackgroundColorDefault = -1;
 	static int mTargetRadiusDefault = -1;
@@ -28,12 +29,41 @@ public class ShowcaseConfig {
 	private int mContentTextColor = -1;
 	private int mDismissTextColor = -1;
 	private Boolean mRenderOverNav = null;
+	private MaterialShowcaseView.RenderMode mRenderMode = null;
+	private MaterialShowcaseView.AttachMode mAttachMode = null;
+	private Boolean mFollowTargetScroll = null;
+	private long mShowWhenIdle = -1;
+	private long mWaitForTarget = -1;
+	private Integer mPriority = null;
+	private long mExpiry = -1;
 
 	public ShowcaseConfig(Context context) {
 		init(context);
 	}
 
-	static void init(Context context) {
+	/**
+	 * Copy a configuration
+	 * @param config the configuration to copy
+	 */
+	ShowcaseConfig(ShowcaseConfig config) {
+		mListeners = new ArrayList<>(config.mListeners);
+		mDelay = config.mDelay;
+		mDismissBackgroundColor = config.mDismissBackgroundColor;
+		mBackgroundColor = config.mBackgroundColor;
+		mTitleTextColor = config.mTitleTextColor;
+		mContentTextColor = config.mContentTextColor;
+		mDismissTextColor = config.mDismissTextColor;
+		mRenderOverNav = config.mRenderOverNav;
+		mRenderMode = config.mRenderMode;
+		mAttachMode = config.mAttachMode;
+		mFollowTargetScroll = config.mFollowTargetScroll;
+		mShowWhenIdle = config.mShowWhenIdle;
+		mWaitForTarget = config.mWaitForTarget;
+		mPriority = config.mPriority;
+		mExpiry = config.mExpiry;
+	}
+
+	static synchronized void init(Context context) {
 		if (!mInitialized) {
 			Resources resources = context.getResources();
 			mBackgroundColorDefault = getColor(resources, R.color.material_showcase_background);
@@ -56,7 +86,7 @@ public class ShowcaseConfig {
 	 */
 	@ColorInt
 	@SuppressWarnings("deprecated")
-	private static int getColor(Resources resources, @ColorRes int id) throws Resources.NotFoundException {
+	static int getColor(Resources resources, @ColorRes int id) throws Resources.NotFoundException {
 		if (Build.VERSION.SDK_INT <= 22) {
 			return resources.getColor(id);
 		} else {
@@ -180,6 +210,126 @@ public class ShowcaseConfig {
 		return mRenderOverNav != null;
 	}
 
+	public MaterialShowcaseView.RenderMode getRenderMode() {
+		return mRenderMode;
+	}
+
+	/**
+	 * Set how the dimmed background and the target hole are rendered. By default this is {@link
+	 * MaterialShowcaseView.RenderMode#DIRECT}
+	 * @param renderMode how to render the showcase
+	 */
+	public void setRenderMode(MaterialShowcaseView.RenderMode renderMode) {
+		mRenderMode = renderMode;
+	}
+
+	public boolean isRenderModeSet() {
+		return mRenderMode != null;
+	}
+
+	public MaterialShowcaseView.AttachMode getAttachMode() {
+		return mAttachMode;
+	}
+
+	/**
+	 * Set how the showcase is attached to the activity's window. Defaults to {@link
+	 * MaterialShowcaseView.AttachMode#DECOR}
+	 * @param attachMode how to attach the showcase
+	 */
+	public void setAttachMode(MaterialShowcaseView.AttachMode attachMode) {
+		mAttachMode = attachMode;
+	}
+
+	public boolean isAttachModeSet() {
+		return mAttachMode != null;
+	}
+
+	public Boolean getFollowTargetScroll() {
+		return mFollowTargetScroll;
+	}
+
+	/**
+	 * Follow targets inside scrolling containers by translating the content box while scrolling or
+	 * flinging, and only relayout once the scrolling has settled.
+	 * @param followTargetScroll true to cheaply follow a scrolling target
+	 */
+	public void setFollowTargetScroll(boolean followTargetScroll) {
+		mFollowTargetScroll = followTargetScroll;
+	}
+
+	public boolean isFollowTargetScrollSet() {
+		return mFollowTargetScroll != null;
+	}
+
+	public long getShowWhenIdle() {
+		return mShowWhenIdle;
+	}
+
+	/**
+	 * Start revealing the showcase the first time the main thread is idle after the next frame has been
+	 * drawn. Use this instead of a fixed delay when calling {@link MaterialShowcaseView#show()} in
+	 * onCreate().
+	 * @param maxWaitMillis maximum milliseconds to wait for the main thread to be idle
+	 */
+	public void setShowWhenIdle(long maxWaitMillis) {
+		mShowWhenIdle = maxWaitMillis;
+	}
+
+	public boolean isShowWhenIdleSet() {
+		return mShowWhenIdle >= 0;
+	}
+
+	public long getWaitForTarget() {
+		return mWaitForTarget;
+	}
+
+	/**
+	 * Wait for the target view to be attached, visible, and stable before revealing the showcase. The
+	 * showcase is skipped if the target isn't ready in time.
+	 * @param timeoutMillis maximum milliseconds to wait for the target
+	 */
+	public void setWaitForTarget(long timeoutMillis) {
+		mWaitForTarget = timeoutMillis;
+	}
+
+	public boolean isWaitForTargetSet() {
+		return mWaitForTarget >= 0;
+	}
+
+	public Integer getPriority() {
+		return mPriority;
+	}
+
+	/**
+	 * Set the priority of the showcase when it's queued behind other showcases. Showcases with higher
+	 * priority are shown first. By default this is 0.
+	 * @param priority priority of the showcase
+	 */
+	public void setPriority(int priority) {
+		mPriority = priority;
+	}
+
+	public boolean isPrioritySet() {
+		return mPriority != null;
+	}
+
+	public long getExpiry() {
+		return mExpiry;
+	}
+
+	/**
+	 * Skip the showcase if it's still queued behind other showcases X milliseconds after calling
+	 * {@link MaterialShowcaseView#show()}
+	 * @param expiryInMillis milliseconds the showcase may wait to be shown
+	 */
+	public void setExpiry(long expiryInMillis) {
+		mExpiry = expiryInMillis;
+	}
+
+	public boolean isExpirySet() {
+		return mExpiry >= 0;
+	}
+
 	/**
 	 * Add a showcase listener to listen to hide, display, and skipped events.
 	 * @param listener showcase listener
@@ -0,0 +1,58 @@
+package io.blushine.android.ui.showcase;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Threads shared by all showcases for work that shouldn't run on the main thread
+ */
+final class ShowcaseExecutors {
+private static final String THREAD_NAME = "MaterialShowcase";
+private static ExecutorService mBackground = null;
+private static Handler mMainHandler = null;
+
+private ShowcaseExecutors() {
+}
+
+/**
+ * Get the background executor. Tasks are run one at a time in the order they were submitted on a
+ * low priority thread.
+ * @return executor for background work
+ */
+static synchronized Executor background() {
+	if (mBackground == null) {
+		mBackground = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				Thread thread = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+						runnable.run();
+					}
+				}, THREAD_NAME);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+	return mBackground;
+}
+
+/**
+ * Get a handler for posting results back to the main thread
+ * @return handler of the main looper
+ */
+static synchronized Handler main() {
+	if (mMainHandler == null) {
+		mMainHandler = new Handler(Looper.getMainLooper());
+	}
+	return mMainHandler;
+}
+}
@@ -0,0 +1,85 @@
+package io.blushine.android.ui.showcase;
+
+/**
+ * Plain integer geometry used for laying out and hit testing showcases. Has no Android dependencies
+ * so that it can be benchmarked on the JVM.
+ */
+final class ShowcaseGeometry {
+/**
+ * Extra radius added to fullscreen backgrounds
+ */
+static final int FULLSCREEN_EXTRA_RADIUS = 10;
+
+private ShowcaseGeometry() {
+}
+
+/**
+ * Get the distance from a point to the corner of a rectangle that is furthest away
+ * @param x x-coordinate of the point
+ * @param y y-coordinate of the point
+ * @param left left side of the rectangle
+ * @param top top side of the rectangle
+ * @param right right side of the rectangle
+ * @param bottom bottom side of the rectangle
+ * @return distance to the furthest corner
+ */
+static int maxCornerDistance(int x, int y, int left, int top, int right, int bottom) {
+	int diffX = Math.max(Math.abs(left - x), Math.abs(right - x));
+	int diffY = Math.max(Math.abs(top - y), Math.abs(bottom - y));
+	return (int) Math.sqrt(diffX * diffX + diffY * diffY);
+}
+
+/**
+ * Get the distance between two points
+ * @return distance between the two points
+ */
+static int distance(int x1, int y1, int x2, int y2) {
+	int diffX = x2 - x1;
+	int diffY = y2 - y1;
+	return (int) Math.sqrt(diffX * diffX + diffY * diffY);
+}
+
+/**
+ * Calculate the radius of a background circle so that it covers both the content box and the target
+ * @param centerX x-coordinate of the background center
+ * @param centerY y-coordinate of the background center
+ * @param left left side of the content box
+ * @param top top side of the content box
+ * @param right right side of the content box
+ * @param bottom bottom side of the content box
+ * @param targetX x-coordinate of the target center
+ * @param targetY y-coordinate of the target center
+ * @param targetRadius radius of the target including any padding
+ * @return radius of the background circle
+ */
+static int backgroundRadius(int centerX, int centerY, int left, int top, int right, int bottom, int targetX, int targetY, int targetRadius) {
+	int contentRadius = maxCornerDistance(centerX, centerY, left, top, right, bottom);
+	int targetDistance = distance(centerX, centerY, targetX, targetY) + targetRadius;
+	return Math.max(contentRadius, targetDistance);
+}
+
+/**
+ * Calculate the radius of a fullscreen background circle
+ * @param width width of the screen
+ * @param height height of the screen
+ * @return radius that covers the entire screen from its center
+ */
+static int fullscreenRadius(int width, int height) {
+	return (int) Math.sqrt(width * width + height * height) / 2 + FULLSCREEN_EXTRA_RADIUS;
+}
+
+/**
+ * Check if a point is inside (or on the edge of) a circle
+ * @param centerX x-coordinate of the circle center
+ * @param centerY y-coordinate of the circle center
+ * @param radiusSq squared radius of the circle
+ * @param x x-coordinate of the point
+ * @param y y-coordinate of the point
+ * @return true if the point is inside the circle
+ */
+static boolean isInsideCircle(int centerX, int centerY, int radiusSq, int x, int y) {
+	int diffX = centerX - x;
+	int diffY = centerY - y;
+	return diffX * diffX + diffY * diffY <= radiusSq;
+}
+}
@@ -0,0 +1,248 @@
+package io.blushine.android.ui.showcase;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Priority queue of showcases waiting to be displayed. Higher priorities are polled first, showcases
+ * with the same priority are polled in the order they were added. Entries with the same showcase id
+ * are merged into one entry and entries that are polled after their deadline are dropped.
+ * <p>
+ * Adding is O(log n), cancelling an entry is O(1) as it's only marked as removed and skipped when
+ * polled. Plain Java so that it can be benchmarked on the JVM.
+ * @param <T> type of the queued showcases
+ */
+final class ShowcaseQueue<T> {
+static final long NO_DEADLINE = Long.MAX_VALUE;
+private static final int INITIAL_CAPACITY = 8;
+// Don't bother compacting small heaps
+private static final int MIN_COMPACT_SIZE = 32;
+private final Map<String, Entry<T>> mEntriesById = new HashMap<>();
+private Entry<T>[] mHeap = newHeap(INITIAL_CAPACITY);
+private int mHeapSize = 0;
+private int mSize = 0;
+private long mNextOrder = 0;
+
+/**
+ * Add a showcase to the queue. If a showcase with the same id is queued the two are merged, the
+ * queued showcase is kept and gets the higher priority and later deadline of the two.
+ * @param item the showcase to add
+ * @param showcaseId id of the showcase, null if it shouldn't be merged with other showcases
+ * @param priority higher priorities are polled first
+ * @param deadline time in milliseconds after which the showcase is dropped, {@link #NO_DEADLINE} to
+ * never drop it
+ * @return entry of the showcase, it's the entry of the already queued showcase if they were merged
+ */
+Entry<T> add(T item, String showcaseId, int priority, long deadline) {
+	if (showcaseId != null) {
+		Entry<T> existing = mEntriesById.get(showcaseId);
+		if (existing != null) {
+			existing.mDeadline = Math.max(existing.mDeadline, deadline);
+			if (priority > existing.mPriority) {
+				existing.mPriority = priority;
+				siftUp(existing.mHeapIndex);
+			}
+			return existing;
+		}
+	}
+
+	Entry<T> entry = new Entry<>(item, showcaseId, priority, deadline, mNextOrder++);
+	if (showcaseId != null) {
+		mEntriesById.put(showcaseId, entry);
+	}
+
+	if (mHeapSize == mHeap.length) {
+		mHeap = Arrays.copyOf(mHeap, mHeapSize * 2);
+	}
+	mHeap[mHeapSize] = entry;
+	entry.mHeapIndex = mHeapSize;
+	mHeapSize++;
+	mSize++;
+	siftUp(entry.mHeapIndex);
+	return entry;
+}
+
+/**
+ * Remove an entry from the queue
+ * @param entry the entry to remove
+ * @return true if it was removed, false if it wasn't queued
+ */
+boolean cancel(Entry<T> entry) {
+	if (entry.mRemoved) {
+		return false;
+	}
+
+	markRemoved(entry);
+	if (mHeapSize >= MIN_COMPACT_SIZE && mSize < mHeapSize / 2) {
+		compact();
+	}
+	return true;
+}
+
+/**
+ * Remove and return the showcase with the highest priority. Showcases that have passed their
+ * deadline are dropped.
+ * @param now current time in milliseconds, in the same time base as the deadlines
+ * @param expired showcases that were dropped are added to this list, may be null
+ * @return the showcase with the highest priority, null if the queue is empty
+ */
+T poll(long now, List<? super T> expired) {
+	while (mHeapSize > 0) {
+		Entry<T> entry = removeFirst();
+		if (entry.mRemoved) {
+			continue;
+		}
+
+		markRemoved(entry);
+		if (entry.mDeadline < now) {
+			if (expired != null) {
+				expired.add(entry.mItem);
+			}
+			continue;
+		}
+		return entry.mItem;
+	}
+	return null;
+}
+
+/**
+ * Remove all showcases
+ */
+void clear() {
+	for (int i = 0; i < mHeapSize; i++) {
+		mHeap[i].mRemoved = true;
+		mHeap[i] = null;
+	}
+	mHeapSize = 0;
+	mSize = 0;
+	mEntriesById.clear();
+}
+
+@SuppressWarnings("unchecked")
+private static <T> Entry<T>[] newHeap(int capacity) {
+	return (Entry<T>[]) new Entry<?>[capacity];
+}
+
+private void markRemoved(Entry<T> entry) {
+	entry.mRemoved = true;
+	mSize--;
+	if (entry.mShowcaseId != null) {
+		mEntriesById.remove(entry.mShowcaseId);
+	}
+}
+
+private Entry<T> removeFirst() {
+	Entry<T> first = mHeap[0];
+	mHeapSize--;
+	mHeap[0] = mHeap[mHeapSize];
+	mHeap[mHeapSize] = null;
+	if (mHeapSize > 0) {
+		mHeap[0].mHeapIndex = 0;
+		siftDown(0);
+	}
+	return first;
+}
+
+/**
+ * Drop removed entries from the heap so that it doesn't grow with cancelled entries
+ */
+private void compact() {
+	int size = 0;
+	for (int i = 0; i < mHeapSize; i++) {
+		Entry<T> entry = mHeap[i];
+		mHeap[i] = null;
+		if (!entry.mRemoved) {
+			entry.mHeapIndex = size;
+			mHeap[size] = entry;
+			size++;
+		}
+	}
+	mHeapSize = size;
+	for (int i = mHeapSize / 2 - 1; i >= 0; i--) {
+		siftDown(i);
+	}
+}
+
+private void siftUp(int index) {
+	Entry<T> entry = mHeap[index];
+	while (index > 0) {
+		int parentIndex = (index - 1) / 2;
+		Entry<T> parent = mHeap[parentIndex];
+		if (!entry.isBefore(parent)) {
+			break;
+		}
+		mHeap[index] = parent;
+		parent.mHeapIndex = index;
+		index = parentIndex;
+	}
+	mHeap[index] = entry;
+	entry.mHeapIndex = index;
+}
+
+private void siftDown(int index) {
+	Entry<T> entry = mHeap[index];
+	int half = mHeapSize / 2;
+	while (index < half) {
+		int childIndex = 2 * index + 1;
+		Entry<T> child = mHeap[childIndex];
+		int rightIndex = childIndex + 1;
+		if (rightIndex < mHeapSize && mHeap[rightIndex].isBefore(child)) {
+			childIndex = rightIndex;
+			child = mHeap[rightIndex];
+		}
+		if (!child.isBefore(entry)) {
+			break;
+		}
+		mHeap[index] = child;
+		child.mHeapIndex = index;
+		index = childIndex;
+	}
+	mHeap[index] = entry;
+	entry.mHeapIndex = index;
+}
+
+/**
+ * Handle to a queued showcase, used to cancel it
+ * @param <T> type of the queued showcase
+ */
+static final class Entry<T> {
+	private final T mItem;
+	private final String mShowcaseId;
+	private final long mOrder;
+	private int mPriority;
+	private long mDeadline;
+	private int mHeapIndex = -1;
+	private boolean mRemoved = false;
+
+	private Entry(T item, String showcaseId, int priority, long deadline, long order) {
+		mItem = item;
+		mShowcaseId = showcaseId;
+		mPriority = priority;
+		mDeadline = deadline;
+		mOrder = order;
+	}
+
+	/**
+	 * @return the queued showcase
+	 */
+	T getItem() {
+		return mItem;
+	}
+
+	/**
+	 * @return id of the queued showcase, may be null
+	 */
+	String getShowcaseId() {
+		return mShowcaseId;
+	}
+
+	private boolean isBefore(Entry<T> other) {
+		if (mPriority != other.mPriority) {
+			return mPriority > other.mPriority;
+		}
+		return mOrder < other.mOrder;
+	}
+}
+}
@@ -0,0 +1,376 @@
+package io.blushine.android.ui.showcase;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.blushine.android.ui.showcase.state.SharedPreferencesStateStore;
+import io.blushine.android.ui.showcase.state.ShowcaseStateStore;
+
+/**
+ * Process-wide cache of the showcase and sequence states in front of a {@link ShowcaseStateStore}.
+ * The states are loaded on the background executor the first time the cache is used, reads are
+ * answered from memory, and writes are batched into one debounced flush. A read made before the
+ * states have loaded waits at most {@link #LOAD_TIMEOUT} milliseconds, after that it's answered as if
+ * the showcase has no status. Showcases that are set as
+ * fired are flushed without waiting for other writes. All store calls are made on the background
+ * executor. The states are reloaded from the store when an activity is started, so that changes made
+ * by other processes are seen.
+ */
+final class ShowcaseStateCache {
+private static final long FLUSH_DELAY = 500;
+/** Max milliseconds a read waits for the states to be loaded */
+static final long LOAD_TIMEOUT = 100;
+private static ShowcaseStateCache mInstance = null;
+private static ShowcaseStateStore mStateStore = null;
+private static boolean mReloadRegistered = false;
+private final ShowcaseStateStore mStore;
+private final CountDownLatch mLoaded = new CountDownLatch(1);
+private final Map<String, Integer> mStatuses = new HashMap<>();
+// Sorted ids for prefix (namespace) queries
+private final TreeSet<String> mSortedIds = new TreeSet<>();
+private final Map<String, Integer> mPendingWrites = new HashMap<>();
+private final Runnable mFlush = new Runnable() {
+	@Override
+	public void run() {
+		flush();
+	}
+};
+// Posted to the main handler to debounce the writes, the flush itself is run in the background
+private final Runnable mScheduledFlush = new Runnable() {
+	@Override
+	public void run() {
+		ShowcaseExecutors.background().execute(mFlush);
+	}
+};
+private boolean mPendingClear = false;
+private boolean mClearedWhileLoading = false;
+
+private ShowcaseStateCache(ShowcaseStateStore store) {
+	mStore = store;
+	ShowcaseExecutors.background().execute(new Runnable() {
+		@Override
+		public void run() {
+			load();
+		}
+	});
+}
+
+/**
+ * Get the cache, starts loading the states if it hasn't been used before
+ * @param context any context, only the application context is kept
+ * @return process-wide state cache
+ */
+static synchronized ShowcaseStateCache getInstance(Context context) {
+	if (mInstance == null) {
+		ShowcaseStateStore store = mStateStore;
+		if (store == null) {
+			store = new SharedPreferencesStateStore(context);
+		}
+		mInstance = new ShowcaseStateCache(store);
+		registerReload(context);
+	}
+	return mInstance;
+}
+
+private static void registerReload(Context context) {
+	if (!mReloadRegistered && context.getApplicationContext() instanceof Application) {
+		mReloadRegistered = true;
+		((Application) context.getApplicationContext()).registerActivityLifecycleCallbacks(new ReloadCallbacks());
+	}
+}
+
+/**
+ * Set where the states are stored. Pending writes are flushed to the previous store.
+ * @param store the store to use, null to use the default SharedPreferences store
+ */
+static synchronized void setStateStore(ShowcaseStateStore store) {
+	mStateStore = store;
+	if (mInstance != null) {
+		mInstance.flushInBackground();
+		mInstance = null;
+	}
+}
+
+private void load() {
+	Map<String, Integer> loaded = new HashMap<>();
+	mStore.load(loaded);
+	synchronized (this) {
+		// Skip the loaded states if they were reset while loading
+		if (!mClearedWhileLoading) {
+			for (Map.Entry<String, Integer> entry : loaded.entrySet()) {
+				// Writes that were made while loading are newer
+				if (!mStatuses.containsKey(entry.getKey())) {
+					mStatuses.put(entry.getKey(), entry.getValue());
+					mSortedIds.add(entry.getKey());
+				}
+			}
+		}
+	}
+	mLoaded.countDown();
+}
+
+/**
+ * Load the states again in the background. Changes that haven't been flushed yet are kept.
+ */
+void reload() {
+	ShowcaseExecutors.background().execute(new Runnable() {
+		@Override
+		public void run() {
+			// Run after load() as the executor is sequential
+			Map<String, Integer> loaded = new HashMap<>();
+			mStore.load(loaded);
+			synchronized (ShowcaseStateCache.this) {
+				// The store is about to be cleared anyway
+				if (mPendingClear) {
+					return;
+				}
+
+				// Remove states that have been reset by another process
+				Iterator<String> iterator = mSortedIds.iterator();
+				while (iterator.hasNext()) {
+					String showcaseId = iterator.next();
+					if (!loaded.containsKey(showcaseId) && !mPendingWrites.containsKey(showcaseId)) {
+						iterator.remove();
+						mStatuses.remove(showcaseId);
+					}
+				}
+				for (Map.Entry<String, Integer> entry : loaded.entrySet()) {
+					if (!mPendingWrites.containsKey(entry.getKey())) {
+						if (mStatuses.put(entry.getKey(), entry.getValue()) == null) {
+							mSortedIds.add(entry.getKey());
+						}
+					}
+				}
+			}
+		}
+	});
+}
+
+/**
+ * Wait for the states to be loaded, at most {@link #LOAD_TIMEOUT} milliseconds
+ * @return true if the states have been loaded, false if the wait timed out
+ */
+private boolean awaitLoaded() {
+	if (mLoaded.getCount() == 0) {
+		return true;
+	}
+
+	boolean loaded = false;
+	try {
+		loaded = mLoaded.await(LOAD_TIMEOUT, TimeUnit.MILLISECONDS);
+	} catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+	}
+	return loaded;
+}
+
+/**
+ * Get the status of a showcase or sequence. Waits at most {@link #LOAD_TIMEOUT} milliseconds for the
+ * states to be loaded if called before that.
+ * @param showcaseId the showcase or sequence
+ * @param defaultStatus status to return if the showcase doesn't have a status
+ * @return status of the showcase
+ */
+int getStatus(@NonNull String showcaseId, int defaultStatus) {
+	awaitLoaded();
+	synchronized (this) {
+		Integer status = mStatuses.get(showcaseId);
+		return status != null ? status : defaultStatus;
+	}
+}
+
+/**
+ * Set the status of a showcase or sequence
+ * @param showcaseId the showcase or sequence
+ * @param status new status
+ * @param immediate true to write it to disk now, false to batch it with other writes
+ */
+void setStatus(@NonNull String showcaseId, int status, boolean immediate) {
+	synchronized (this) {
+		if (mStatuses.put(showcaseId, status) == null) {
+			mSortedIds.add(showcaseId);
+		}
+		mPendingWrites.put(showcaseId, status);
+	}
+
+	if (immediate) {
+		flushInBackground();
+	} else {
+		scheduleFlush();
+	}
+}
+
+/**
+ * Check which showcases have a status
+ * @param showcaseIds the showcases to check
+ * @param status the status to check for
+ * @param out bit i is set if showcaseIds[i] has the status and cleared otherwise
+ * @param defaultStatus status of showcases that don't have a status
+ */
+void hasStatus(@NonNull String[] showcaseIds, int status, @NonNull BitSet out, int defaultStatus) {
+	awaitLoaded();
+	synchronized (this) {
+		for (int i = 0; i < showcaseIds.length; i++) {
+			Integer current = mStatuses.get(showcaseIds[i]);
+			out.set(i, (current != null ? current : defaultStatus) == status);
+		}
+	}
+}
+
+/**
+ * Get all showcases in a namespace that have a status
+ * @param prefix namespace of the showcases, i.e. the start of their ids
+ * @param status the status to check for
+ * @param out the ids of the showcases that have the status are added to this collection
+ */
+void getIdsWithStatus(@NonNull String prefix, int status, @NonNull Collection<String> out) {
+	awaitLoaded();
+	synchronized (this) {
+		for (String showcaseId : mSortedIds.tailSet(prefix)) {
+			if (!showcaseId.startsWith(prefix)) {
+				break;
+			}
+			if (mStatuses.get(showcaseId) == status) {
+				out.add(showcaseId);
+			}
+		}
+	}
+}
+
+/**
+ * Set the status of all showcases in a namespace
+ * @param prefix namespace of the showcases, i.e. the start of their ids
+ * @param status new status
+ */
+void setStatusWithPrefix(@NonNull final String prefix, final int status) {
+	boolean loaded = awaitLoaded();
+	applyStatusWithPrefix(prefix, status);
+	scheduleFlush();
+
+	// Apply it to the showcases that are still being loaded too
+	if (!loaded) {
+		ShowcaseExecutors.background().execute(new Runnable() {
+			@Override
+			public void run() {
+				applyStatusWithPrefix(prefix, status);
+				scheduleFlush();
+			}
+		});
+	}
+}
+
+private synchronized void applyStatusWithPrefix(String prefix, int status) {
+	for (String showcaseId : mSortedIds.tailSet(prefix)) {
+		if (!showcaseId.startsWith(prefix)) {
+			break;
+		}
+		mStatuses.put(showcaseId, status);
+		mPendingWrites.put(showcaseId, status);
+	}
+}
+
+/**
+ * Reset the status of all showcases and sequences
+ */
+void clear() {
+	synchronized (this) {
+		mStatuses.clear();
+		mSortedIds.clear();
+		mPendingWrites.clear();
+		mPendingClear = true;
+		if (mLoaded.getCount() > 0) {
+			mClearedWhileLoading = true;
+		}
+	}
+	flushInBackground();
+}
+
+private void scheduleFlush() {
+	ShowcaseExecutors.main().removeCallbacks(mScheduledFlush);
+	ShowcaseExecutors.main().postDelayed(mScheduledFlush, FLUSH_DELAY);
+}
+
+/**
+ * Write all pending changes to the store now, without waiting for the debounce delay
+ */
+private void flushInBackground() {
+	ShowcaseExecutors.main().removeCallbacks(mScheduledFlush);
+	ShowcaseExecutors.background().execute(mFlush);
+}
+
+/**
+ * Write all pending changes to the store in one batch. Only called on the background executor.
+ */
+private void flush() {
+	boolean clear;
+	Map<String, Integer> writes;
+	synchronized (this) {
+		clear = mPendingClear;
+		mPendingClear = false;
+		if (mPendingWrites.isEmpty()) {
+			writes = null;
+		} else {
+			writes = new HashMap<>(mPendingWrites);
+			mPendingWrites.clear();
+		}
+	}
+
+	// The store is used outside the lock so that reads aren't blocked while it writes to disk. Only
+	// this executor uses the store, so the writes are still made in order.
+	if (clear) {
+		mStore.clear();
+	}
+	if (writes != null) {
+		mStore.write(writes);
+	}
+}
+
+private static class ReloadCallbacks implements Application.ActivityLifecycleCallbacks {
+	@Override
+	public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+	}
+
+	@Override
+	public void onActivityStarted(Activity activity) {
+		ShowcaseStateCache instance;
+		synchronized (ShowcaseStateCache.class) {
+			instance = mInstance;
+		}
+		if (instance != null) {
+			instance.reload();
+		}
+	}
+
+	@Override
+	public void onActivityResumed(Activity activity) {
+	}
+
+	@Override
+	public void onActivityPaused(Activity activity) {
+	}
+
+	@Override
+	public void onActivityStopped(Activity activity) {
+	}
+
+	@Override
+	public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+	}
+
+	@Override
+	public void onActivityDestroyed(Activity activity) {
+	}
+}
+}
@@ -0,0 +1,68 @@
+package io.blushine.android.ui.showcase;
+
+import android.content.Context;
+import android.support.v7.widget.AppCompatButton;
+import android.util.Log;
+
+/**
+ * Optional warm-up of the library so that the first showcase is as quick to show as later ones. Call
+ * {@link #warmUp(Context)} from {@link android.app.Application#onCreate()}. On a background thread it
+ * resolves the default colors and dimensions, starts loading the showcase states, and loads the
+ * classes used when showing a showcase. No views are created, the content box is inflated by each
+ * showcase with its activity's theme.
+ */
+public final class ShowcaseWarmUp {
+private static final String TAG = ShowcaseWarmUp.class.getSimpleName();
+private static boolean mStarted = false;
+
+private ShowcaseWarmUp() {
+}
+
+/**
+ * Warm up the library on a background thread. Only the first call has any effect.
+ * @param context any context, only the application context is used
+ */
+public static synchronized void warmUp(Context context) {
+	if (mStarted) {
+		return;
+	}
+	mStarted = true;
+
+	final Context appContext = context.getApplicationContext();
+
+	// Start loading the states first, it's run on the background executor too
+	ShowcaseStateCache.getInstance(appContext);
+
+	ShowcaseExecutors.background().execute(new Runnable() {
+		@Override
+		public void run() {
+			ShowcaseConfig.init(appContext);
+			loadClasses();
+		}
+	});
+}
+
+private static void loadClasses() {
+	Class<?>[] classes = {
+			MaterialShowcaseView.class,
+			MaterialShowcaseSequence.class,
+			CircleShape.class,
+			CircularShapeAnimation.class,
+			MorphShapeAnimation.class,
+			AlphaAnimation.class,
+			ChoreographerAnimationClock.class,
+			TargetTracker.class,
+			TextMeasurer.class,
+			io.blushine.android.ui.showcase.target.ViewTarget.class,
+			AppCompatButton.class,
+	};
+	ClassLoader classLoader = ShowcaseWarmUp.class.getClassLoader();
+	for (Class<?> loadClass : classes) {
+		try {
+			Class.forName(loadClass.getName(), true, classLoader);
+		} catch (ClassNotFoundException | LinkageError e) {
+			Log.w(TAG, "Failed to load " + loadClass.getName(), e);
+		}
+	}
+}
+}
@@ -0,0 +1,137 @@
+package io.blushine.android.ui.showcase;
+
+import android.graphics.Rect;
+import android.view.Choreographer;
+import android.view.View;
+
+import java.util.concurrent.TimeUnit;
+
+import io.blushine.android.ui.showcase.target.ViewTarget;
+
+/**
+ * Waits until a {@link ViewTarget} is ready to be showcased. The target is ready when its view exists,
+ * is attached and shown, has a size, is at least partly inside the visible window, and hasn't moved or
+ * changed size for {@link #STABLE_FRAMES} frames. Checked once per frame, must be used on the main
+ * thread.
+ */
+final class TargetReadyWaiter implements Choreographer.FrameCallback {
+static final int STABLE_FRAMES = 2;
+private final ViewTarget mTarget;
+private final Listener mListener;
+private final long mTimeoutNanos;
+private final int[] mLocation = new int[2];
+private final int[] mLastLocation = new int[2];
+private final Rect mVisibleRect = new Rect();
+private int mLastWidth = -1;
+private int mLastHeight = -1;
+private int mStableFrames = 0;
+private long mStartNanos = -1;
+private boolean mWaiting = false;
+
+/**
+ * @param target the target to wait for
+ * @param timeoutMillis maximum milliseconds to wait for the target
+ * @param listener called when the target is ready or the wait timed out
+ */
+TargetReadyWaiter(ViewTarget target, long timeoutMillis, Listener listener) {
+	mTarget = target;
+	mTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+	mListener = listener;
+}
+
+/**
+ * Start waiting for the target, checks it once per frame
+ */
+void start() {
+	if (mWaiting) {
+		return;
+	}
+	mWaiting = true;
+	Choreographer.getInstance().postFrameCallback(this);
+}
+
+/**
+ * Stop waiting, the listener won't be called
+ */
+void cancel() {
+	if (mWaiting) {
+		mWaiting = false;
+		Choreographer.getInstance().removeFrameCallback(this);
+	}
+}
+
+@Override
+public void doFrame(long frameTimeNanos) {
+	if (!mWaiting) {
+		return;
+	}
+	if (mStartNanos < 0) {
+		mStartNanos = frameTimeNanos;
+	}
+
+	if (isStable()) {
+		mWaiting = false;
+		mListener.onTargetReady();
+	} else if (frameTimeNanos - mStartNanos >= mTimeoutNanos) {
+		mWaiting = false;
+		mListener.onTargetTimeout();
+	} else {
+		Choreographer.getInstance().postFrameCallback(this);
+	}
+}
+
+/**
+ * Check the target and count how many frames in a row it has been visible in the same place
+ * @return true if the target has been ready for {@link #STABLE_FRAMES} frames
+ */
+private boolean isStable() {
+	View view = mTarget.getView();
+	if (!isVisible(view)) {
+		mStableFrames = 0;
+		mLastWidth = -1;
+		mLastHeight = -1;
+		return false;
+	}
+
+	view.getLocationOnScreen(mLocation);
+	int width = view.getWidth();
+	int height = view.getHeight();
+	if (width == mLastWidth && height == mLastHeight && mLocation[0] == mLastLocation[0] && mLocation[1] == mLastLocation[1]) {
+		mStableFrames++;
+	} else {
+		mStableFrames = 1;
+		mLastWidth = width;
+		mLastHeight = height;
+		mLastLocation[0] = mLocation[0];
+		mLastLocation[1] = mLocation[1];
+	}
+
+	if (mStableFrames >= STABLE_FRAMES) {
+		// The cached geometry may be from before the target settled
+		mTarget.invalidate();
+		return true;
+	}
+	return false;
+}
+
+private boolean isVisible(View view) {
+	return view != null &&
+			view.isAttachedToWindow() &&
+			view.getWidth() > 0 &&
+			view.getHeight() > 0 &&
+			view.isShown() &&
+			view.getGlobalVisibleRect(mVisibleRect);
+}
+
+interface Listener {
+	/**
+	 * Called when the target is ready to be showcased
+	 */
+	void onTargetReady();
+
+	/**
+	 * Called when the target wasn't ready before the timeout
+	 */
+	void onTargetTimeout();
+}
+}
@@ -0,0 +1,130 @@
+package io.blushine.android.ui.showcase;
+
+import android.graphics.Point;
+import android.view.Choreographer;
+
+import io.blushine.android.ui.showcase.target.Target;
+import io.blushine.android.ui.showcase.target.ViewTarget;
+
+/**
+ * Tracks the position and size of a {@link ViewTarget} through the view's layout and scroll events,
+ * which the target observes for it. The target is only checked after such an event, before the next
+ * draw. Changes are coalesced so that the listener is notified at most once per frame, and only when
+ * the target actually moved or changed size.
+ */
+class TargetTracker implements ViewTarget.GeometryObserver, Choreographer.FrameCallback {
+private final Listener mListener;
+private final Point mPoint = new Point();
+private final Point mLastPoint = new Point();
+private int mLastRadiusSq = -1;
+private ViewTarget mTarget = null;
+private boolean mUpdateScheduled = false;
+private boolean mScrolled = false;
+
+/**
+ * @param listener called when the target moved or changed size
+ */
+TargetTracker(Listener listener) {
+	mListener = listener;
+}
+
+/**
+ * Start tracking a target. Stops tracking any previous target.
+ * @param target the target to track. Only {@link ViewTarget}s can be tracked
+ * @return true if the target is tracked, false if the target needs to be polled instead
+ */
+boolean track(Target target) {
+	stop();
+
+	if (!(target instanceof ViewTarget) || !((ViewTarget) target).setGeometryObserver(this)) {
+		return false;
+	}
+
+	mTarget = (ViewTarget) target;
+	mTarget.getPoint(mLastPoint);
+	mLastRadiusSq = mTarget.getRadiusSq();
+	return true;
+}
+
+/**
+ * Stop tracking the current target
+ */
+void stop() {
+	if (mTarget != null) {
+		mTarget.setGeometryObserver(null);
+		mTarget = null;
+	}
+	if (mUpdateScheduled) {
+		Choreographer.getInstance().removeFrameCallback(this);
+		mUpdateScheduled = false;
+	}
+	mLastRadiusSq = -1;
+	mScrolled = false;
+}
+
+/**
+ * Check the target on the next frame. Multiple calls within a frame only result in one check.
+ */
+private void scheduleUpdate() {
+	if (!mUpdateScheduled && mTarget != null) {
+		mUpdateScheduled = true;
+		Choreographer.getInstance().postFrameCallback(this);
+	}
+}
+
+/**
+ * Refresh the target's geometry and notify the listener if it changed
+ */
+private void update() {
+	if (mTarget == null) {
+		return;
+	}
+
+	mTarget.invalidate();
+	mTarget.getPoint(mPoint);
+	int radiusSq = mTarget.getRadiusSq();
+
+	boolean scrolled = mScrolled;
+	mScrolled = false;
+
+	if (!mPoint.equals(mLastPoint) || radiusSq != mLastRadiusSq) {
+		mLastPoint.set(mPoint.x, mPoint.y);
+		mLastRadiusSq = radiusSq;
+		mListener.onTargetMoved(scrolled);
+	}
+}
+
+@Override
+public void doFrame(long frameTimeNanos) {
+	mUpdateScheduled = false;
+	update();
+}
+
+@Override
+public void onPreDraw() {
+	// Only check if something has changed, checking now so that the scheduled check isn't needed
+	if (mUpdateScheduled) {
+		Choreographer.getInstance().removeFrameCallback(this);
+		mUpdateScheduled = false;
+		update();
+	}
+}
+
+@Override
+public void onGeometryChanged(boolean scrolled) {
+	mScrolled |= scrolled;
+	scheduleUpdate();
+}
+
+/**
+ * Listens to target changes
+ */
+interface Listener {
+	/**
+	 * Called at most once per frame when the target has moved or changed size
+	 * @param scrolled true if the window scrolled since the last check, i.e. the target probably moved
+	 * because it is inside a scrolling container
+	 */
+	void onTargetMoved(boolean scrolled);
+}
+}
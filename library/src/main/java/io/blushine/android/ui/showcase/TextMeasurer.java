@@ -0,0 +1,163 @@
+package io.blushine.android.ui.showcase;
+
+import android.graphics.Typeface;
+import android.os.Build;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.util.LruCache;
+
+/**
+ * Measures title and content texts on a background thread before they are displayed. Measuring fills
+ * the platform's shared text measurement cache, which makes the text views' own measurement on the
+ * main thread cheap when the showcase is displayed. The layouts themselves aren't kept as text views
+ * can't use them before API 28, instead the texts that have been measured are remembered by text,
+ * width and paint so that showing the same showcase again doesn't measure anything.
+ */
+final class TextMeasurer {
+private static final int MAX_MEASURED = 64;
+private static final LruCache<Key, Boolean> mMeasured = new LruCache<>(MAX_MEASURED);
+
+private TextMeasurer() {
+}
+
+/**
+ * Measure texts on the background executor
+ * @param width available width of the texts
+ * @param texts texts paired with the paint they are drawn with, null or empty texts are skipped.
+ * @param onPrepared called on the main thread when all texts have been measured, may be null
+ */
+static void prepare(final int width, final Request[] texts, final Runnable onPrepared) {
+	if (!needsMeasuring(width, texts)) {
+		if (onPrepared != null) {
+			onPrepared.run();
+		}
+		return;
+	}
+
+	ShowcaseExecutors.background().execute(new Runnable() {
+		@Override
+		public void run() {
+			measure(width, texts);
+			if (onPrepared != null) {
+				ShowcaseExecutors.main().post(onPrepared);
+			}
+		}
+	});
+}
+
+/**
+ * Measure texts on the calling thread. Should only be called from a background thread. Texts that
+ * have already been measured are skipped.
+ * @param width available width of the texts
+ * @param texts texts paired with the paint they are drawn with, null or empty texts are skipped.
+ */
+static void measure(int width, Request[] texts) {
+	for (Request request : texts) {
+		if (isMeasurable(width, request)) {
+			Key key = new Key(request.mText, request.mPaint, width);
+			if (mMeasured.get(key) == null) {
+				build(request.mText, request.mPaint, width);
+				mMeasured.put(key, Boolean.TRUE);
+			}
+		}
+	}
+}
+
+/**
+ * @return true if any of the texts hasn't been measured
+ */
+private static boolean needsMeasuring(int width, Request[] texts) {
+	for (Request request : texts) {
+		if (isMeasurable(width, request) && mMeasured.get(new Key(request.mText, request.mPaint, width)) == null) {
+			return true;
+		}
+	}
+	return false;
+}
+
+private static boolean isMeasurable(int width, Request request) {
+	return request != null && request.mText != null && request.mText.length() > 0 && width > 0;
+}
+
+@SuppressWarnings("deprecation")
+private static StaticLayout build(CharSequence text, TextPaint paint, int width) {
+	if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+		return StaticLayout.Builder.obtain(text, 0, text.length(), paint, width).build();
+	} else {
+		return new StaticLayout(text, paint, width, Layout.Alignment.ALIGN_NORMAL, 1, 0, true);
+	}
+}
+
+/**
+ * A text to measure. Takes a copy of the paint as the paint of a view may only be used on the main
+ * thread.
+ */
+static class Request {
+	private final CharSequence mText;
+	private final TextPaint mPaint;
+
+	Request(CharSequence text, TextPaint paint) {
+		mText = text;
+		mPaint = new TextPaint(paint);
+	}
+}
+
+/**
+ * A measured text, identified by its text, width and the paint attributes that affect measuring
+ */
+private static class Key {
+	private final String mText;
+	private final int mWidth;
+	private final float mTextSize;
+	private final float mTextScaleX;
+	private final float mTextSkewX;
+	private final float mLetterSpacing;
+	private final Typeface mTypeface;
+	private final int mFlags;
+
+	Key(CharSequence text, TextPaint paint, int width) {
+		mText = text.toString();
+		mWidth = width;
+		mTextSize = paint.getTextSize();
+		mTextScaleX = paint.getTextScaleX();
+		mTextSkewX = paint.getTextSkewX();
+		mLetterSpacing = paint.getLetterSpacing();
+		mTypeface = paint.getTypeface();
+		mFlags = paint.getFlags();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof Key)) {
+			return false;
+		}
+
+		Key key = (Key) o;
+		return mWidth == key.mWidth
+				&& mTextSize == key.mTextSize
+				&& mTextScaleX == key.mTextScaleX
+				&& mTextSkewX == key.mTextSkewX
+				&& mLetterSpacing == key.mLetterSpacing
+				&& mFlags == key.mFlags
+				&& (mTypeface == null ? key.mTypeface == null : mTypeface.equals(key.mTypeface))
+				&& mText.equals(key.mText);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = mText.hashCode();
+		result = 31 * result + mWidth;
+		result = 31 * result + Float.floatToIntBits(mTextSize);
+		result = 31 * result + Float.floatToIntBits(mTextScaleX);
+		result = 31 * result + Float.floatToIntBits(mTextSkewX);
+		result = 31 * result + Float.floatToIntBits(mLetterSpacing);
+		result = 31 * result + (mTypeface != null ? mTypeface.hashCode() : 0);
+		result = 31 * result + mFlags;
+		return result;
+	}
+}
+}
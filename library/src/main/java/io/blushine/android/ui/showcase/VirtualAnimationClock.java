@@ -0,0 +1,41 @@
+package io.blushine.android.ui.showcase;
+
+/**
+ * Animation clock where the time is set manually. Use this to drive animations frame by frame in
+ * tests and benchmarks.
+ */
+class VirtualAnimationClock implements AnimationClock {
+private long mTimeMillis;
+
+VirtualAnimationClock() {
+	this(0);
+}
+
+/**
+ * @param timeMillis start time in milliseconds
+ */
+VirtualAnimationClock(long timeMillis) {
+	mTimeMillis = timeMillis;
+}
+
+@Override
+public long getTimeMillis() {
+	return mTimeMillis;
+}
+
+/**
+ * Set the current time
+ * @param timeMillis current time in milliseconds
+ */
+void setTimeMillis(long timeMillis) {
+	mTimeMillis = timeMillis;
+}
+
+/**
+ * Advance the time
+ * @param millis milliseconds to advance the time with
+ */
+void advance(long millis) {
+	mTimeMillis += millis;
+}
+}
@@ -0,0 +1,28 @@
+package io.blushine.android.ui.showcase.state;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps the states in memory only, they are lost when the process dies. Useful for tests and for
+ * showing showcases again on every app start.
+ */
+public class InMemoryStateStore implements ShowcaseStateStore {
+
+private final Map<String, Integer> mStates = new HashMap<>();
+
+@Override
+public synchronized void load(Map<String, Integer> out) {
+	out.putAll(mStates);
+}
+
+@Override
+public synchronized void write(Map<String, Integer> states) {
+	mStates.putAll(states);
+}
+
+@Override
+public synchronized void clear() {
+	mStates.clear();
+}
+}
@@ -0,0 +1,266 @@
+package io.blushine.android.ui.showcase.state;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores the states in a compact binary file that is memory-mapped. Each showcase has a fixed size
+ * record that is updated in place, so changing a state only writes that record instead of rewriting
+ * the whole file. Changes are forced to disk before a write returns. The file is locked while it's read
+ * or written so that it can be shared between processes, and several stores in the same process take
+ * turns. States in the default SharedPreferences file are migrated when the file is created.
+ * <p>
+ * Showcase ids can be at most {@link #MAX_ID_BYTES} bytes long in UTF-8.
+ */
+public class MappedFileStateStore implements ShowcaseStateStore {
+
+/** Max length of a showcase id in UTF-8 bytes */
+public static final int MAX_ID_BYTES = 122;
+private static final String TAG = MappedFileStateStore.class.getSimpleName();
+private static final String FILE_NAME = "material_showcaseview_state";
+private static final Charset UTF_8 = Charset.forName("UTF-8");
+private static final int MAGIC = 0x4d534356;
+private static final int VERSION = 1;
+// Header: magic, version, record count, generation (incremented on clear)
+private static final int HEADER_MAGIC = 0;
+private static final int HEADER_VERSION = 4;
+private static final int HEADER_COUNT = 8;
+private static final int HEADER_GENERATION = 12;
+private static final int HEADER_SIZE = 16;
+// Record: state, id length, id
+private static final int RECORD_SIZE = 128;
+private static final int RECORD_STATE = 0;
+private static final int RECORD_ID_LENGTH = 4;
+private static final int RECORD_ID = 6;
+private static final int GROW_RECORDS = 64;
+// File locks are held by the whole process, two stores in it can't lock the file at the same time
+private static final Object PROCESS_LOCK = new Object();
+private final Context mContext;
+private File mFile;
+private final Map<String, Integer> mRecordIndex = new HashMap<>();
+private int mIndexedCount = 0;
+private int mIndexedGeneration = 0;
+private FileChannel mChannel = null;
+private MappedByteBuffer mBuffer = null;
+
+/**
+ * Store the states in the app's files directory
+ * @param context any context, only the application context is kept
+ */
+public MappedFileStateStore(Context context) {
+	// The files directory is looked up when the file is first opened, on the background thread
+	this(context, null);
+}
+
+/**
+ * Store the states in the specified file
+ * @param context any context, only the application context is kept
+ * @param file the file to store the states in, null for the default file in the app's files directory
+ */
+public MappedFileStateStore(Context context, File file) {
+	mContext = context.getApplicationContext();
+	mFile = file;
+}
+
+@Override
+public void load(Map<String, Integer> out) {
+	synchronized (PROCESS_LOCK) {
+		try {
+			FileLock lock = open();
+			try {
+				updateIndex();
+				for (Map.Entry<String, Integer> entry : mRecordIndex.entrySet()) {
+					out.put(entry.getKey(), mBuffer.getInt(recordOffset(entry.getValue()) + RECORD_STATE));
+				}
+			} finally {
+				lock.release();
+			}
+		} catch (IOException e) {
+			Log.w(TAG, "Failed to load showcase states", e);
+		}
+	}
+}
+
+@Override
+public void write(Map<String, Integer> states) {
+	synchronized (PROCESS_LOCK) {
+		try {
+			FileLock lock = open();
+			try {
+				updateIndex();
+				writeLocked(states);
+				mBuffer.force();
+			} finally {
+				lock.release();
+			}
+		} catch (IOException e) {
+			Log.w(TAG, "Failed to write showcase states", e);
+		}
+	}
+}
+
+@Override
+public void clear() {
+	synchronized (PROCESS_LOCK) {
+		try {
+			FileLock lock = open();
+			try {
+				mBuffer.putInt(HEADER_COUNT, 0);
+				mBuffer.putInt(HEADER_GENERATION, mBuffer.getInt(HEADER_GENERATION) + 1);
+				updateIndex();
+				mBuffer.force();
+			} finally {
+				lock.release();
+			}
+		} catch (IOException e) {
+			Log.w(TAG, "Failed to clear showcase states", e);
+		}
+	}
+}
+
+private void writeLocked(Map<String, Integer> states) throws IOException {
+	for (Map.Entry<String, Integer> entry : states.entrySet()) {
+		Integer record = mRecordIndex.get(entry.getKey());
+		if (record == null) {
+			record = addRecord(entry.getKey());
+			if (record == null) {
+				continue;
+			}
+		}
+		mBuffer.putInt(recordOffset(record) + RECORD_STATE, entry.getValue());
+	}
+}
+
+/**
+ * Open and lock the file, creates it if it doesn't exist
+ * @return lock of the file, has to be released
+ */
+private FileLock open() throws IOException {
+	if (mFile == null) {
+		mFile = new File(mContext.getFilesDir(), FILE_NAME);
+	}
+	if (mChannel == null) {
+		mChannel = new RandomAccessFile(mFile, "rw").getChannel();
+	}
+
+	FileLock lock;
+	try {
+		lock = mChannel.lock();
+	} catch (OverlappingFileLockException e) {
+		// Locked through another channel in this process, e.g. by another copy of the library
+		throw new IOException("File is already locked in this process: " + mFile, e);
+	}
+	try {
+		if (mChannel.size() < HEADER_SIZE) {
+			map(GROW_RECORDS);
+			mBuffer.putInt(HEADER_MAGIC, MAGIC);
+			mBuffer.putInt(HEADER_VERSION, VERSION);
+			mBuffer.putInt(HEADER_COUNT, 0);
+			mBuffer.putInt(HEADER_GENERATION, 0);
+			migrate();
+		} else if (mBuffer == null || mBuffer.capacity() != mChannel.size()) {
+			// Another process may have grown the file
+			mBuffer = mChannel.map(FileChannel.MapMode.READ_WRITE, 0, mChannel.size());
+		}
+
+		if (mBuffer.getInt(HEADER_MAGIC) != MAGIC || mBuffer.getInt(HEADER_VERSION) != VERSION) {
+			throw new IOException("Unknown file format: " + mFile);
+		}
+	} catch (IOException | RuntimeException e) {
+		lock.release();
+		throw e;
+	}
+	return lock;
+}
+
+/**
+ * Move the states from the SharedPreferences file to the newly created file
+ */
+private void migrate() throws IOException {
+	SharedPreferencesStateStore prefsStore = new SharedPreferencesStateStore(mContext);
+	Map<String, Integer> states = new HashMap<>();
+	prefsStore.load(states);
+	if (!states.isEmpty()) {
+		writeLocked(states);
+		prefsStore.clear();
+	}
+}
+
+/**
+ * Grow the file and map it
+ * @param recordCapacity number of records the file should have room for
+ */
+private void map(int recordCapacity) throws IOException {
+	long size = HEADER_SIZE + (long) recordCapacity * RECORD_SIZE;
+	mBuffer = mChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+}
+
+/**
+ * Index the records that have been added, by this or another process, since the last time
+ */
+private void updateIndex() {
+	int count = mBuffer.getInt(HEADER_COUNT);
+	int generation = mBuffer.getInt(HEADER_GENERATION);
+	if (generation != mIndexedGeneration || count < mIndexedCount) {
+		mRecordIndex.clear();
+		mIndexedCount = 0;
+		mIndexedGeneration = generation;
+	}
+
+	byte[] idBytes = new byte[MAX_ID_BYTES];
+	for (int record = mIndexedCount; record < count; record++) {
+		int offset = recordOffset(record);
+		int length = mBuffer.getShort(offset + RECORD_ID_LENGTH);
+		for (int i = 0; i < length; i++) {
+			idBytes[i] = mBuffer.get(offset + RECORD_ID + i);
+		}
+		mRecordIndex.put(new String(idBytes, 0, length, UTF_8), record);
+	}
+	mIndexedCount = count;
+}
+
+/**
+ * Append a record for a showcase
+ * @param showcaseId the showcase
+ * @return index of the new record, null if the id is too long
+ */
+private Integer addRecord(String showcaseId) throws IOException {
+	byte[] idBytes = showcaseId.getBytes(UTF_8);
+	if (idBytes.length > MAX_ID_BYTES) {
+		Log.w(TAG, "Showcase id is longer than " + MAX_ID_BYTES + " bytes, its state isn't stored: " + showcaseId);
+		return null;
+	}
+
+	int record = mBuffer.getInt(HEADER_COUNT);
+	if (recordOffset(record + 1) > mBuffer.capacity()) {
+		map(record + GROW_RECORDS);
+	}
+
+	int offset = recordOffset(record);
+	mBuffer.putShort(offset + RECORD_ID_LENGTH, (short) idBytes.length);
+	for (int i = 0; i < idBytes.length; i++) {
+		mBuffer.put(offset + RECORD_ID + i, idBytes[i]);
+	}
+
+	// Publish the record when it has been written
+	mBuffer.putInt(HEADER_COUNT, record + 1);
+	mRecordIndex.put(showcaseId, record);
+	mIndexedCount = record + 1;
+	return record;
+}
+
+private static int recordOffset(int record) {
+	return HEADER_SIZE + record * RECORD_SIZE;
+}
+}
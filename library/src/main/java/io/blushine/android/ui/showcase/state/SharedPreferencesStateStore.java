@@ -0,0 +1,49 @@
+package io.blushine.android.ui.showcase.state;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.Map;
+
+/**
+ * Stores the states in the library's SharedPreferences file. This is the default store.
+ */
+public class SharedPreferencesStateStore implements ShowcaseStateStore {
+
+private static final String PREFS_NAME = "material_showcaseview_prefs";
+private static final String STATUS = "status_";
+private final SharedPreferences mPrefs;
+
+public SharedPreferencesStateStore(Context context) {
+	mPrefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+}
+
+@Override
+public void load(Map<String, Integer> out) {
+	for (Map.Entry<String, ?> entry : mPrefs.getAll().entrySet()) {
+		String key = entry.getKey();
+		Object value = entry.getValue();
+		if (key.startsWith(STATUS) && value instanceof Integer) {
+			out.put(key.substring(STATUS.length()), (Integer) value);
+		}
+	}
+}
+
+/**
+ * Writes the states with commit(), so they are on disk when this returns. Only called on the library's
+ * background thread.
+ */
+@Override
+public void write(Map<String, Integer> states) {
+	SharedPreferences.Editor editor = mPrefs.edit();
+	for (Map.Entry<String, Integer> entry : states.entrySet()) {
+		editor.putInt(STATUS + entry.getKey(), entry.getValue());
+	}
+	editor.commit();
+}
+
+@Override
+public void clear() {
+	mPrefs.edit().clear().commit();
+}
+}
@@ -0,0 +1,31 @@
+package io.blushine.android.ui.showcase.state;
+
+import java.util.Map;
+
+/**
+ * Persistent storage of the showcase and sequence states. The states are the showcase or sequence id
+ * mapped to how many showcases of the sequence have been shown, or -1 if it has been shown. All
+ * states are kept in memory by the library, so a store only needs to load everything and write
+ * changes. Writes are made on the library's background thread.
+ */
+public interface ShowcaseStateStore {
+
+/**
+ * Load all states. Called on a background thread when the states are first used and again when an
+ * activity is started, to see changes made by other processes.
+ * @param out add all stored states to this map
+ */
+void load(Map<String, Integer> out);
+
+/**
+ * Store changed states. Called with the changes of several showcases at once.
+ * @param states showcase ids mapped to their new state
+ */
+void write(Map<String, Integer> states);
+
+/**
+ * Remove all states
+ */
+void clear();
+
+}
@@ -10,6 +10,11 @@ Target NONE = new Target() {
 		return new Point(1000000, 1000000);
 	}
 
+	@Override
+	public void getPoint(Point out) {
+		out.set(1000000, 1000000);
+	}
+
 	@Override
 	public int getRadius() {
 		return 10000;
@@ -27,6 +32,16 @@ Target NONE = new Target() {
  */
 Point getPoint();
 
+/**
+ * Get the center of the target without allocating. Prefer this over {@link #getPoint()} when called
+ * often, e.g. every frame.
+ * @param out set to the center of the target
+ */
+default void getPoint(Point out) {
+	Point point = getPoint();
+	out.set(point.x, point.y);
+}
+
 /**
  * Get the target's radius
  * @return target's radius
@@ -3,29 +3,142 @@ package io.blushine.android.ui.showcase.target;
 import android.app.Activity;
 import android.graphics.Point;
 import android.view.View;
+import android.view.ViewTreeObserver;
 
 
 public class ViewTarget implements Target {
 
-private final View mView;
+private View mView;
+private final int mViewId;
+private Activity mActivity;
+private final int[] mLocation = new int[2];
+private final Point mPoint = new Point();
+private final GeometryListener mGeometryListener = new GeometryListener();
+private int mRadiusSq = 0;
+private boolean mGeometryValid = false;
+private GeometryObserver mObserver = null;
+private View mObservedView = null;
+private ViewTreeObserver mViewTreeObserver = null;
 
 public ViewTarget(View view) {
 	mView = view;
+	mViewId = View.NO_ID;
+	mActivity = null;
 }
 
+/**
+ * Target a view by its id. The view is looked up the first time it's used, so it doesn't have to
+ * exist yet when the target is created.
+ * @param viewId id of the view to target
+ * @param activity activity that contains the view
+ */
 public ViewTarget(int viewId, Activity activity) {
-	mView = activity.findViewById(viewId);
+	mView = null;
+	mViewId = viewId;
+	mActivity = activity;
+}
+
+/**
+ * Look up the view by its id if it hasn't been found yet
+ */
+private void resolveView() {
+	if (mView == null && mActivity != null) {
+		mView = mActivity.findViewById(mViewId);
+		if (mView != null) {
+			mActivity = null;
+		}
+	}
+}
+
+/**
+ * Observe the view's layout, scroll and draw events. The view's listeners are only registered while
+ * an observer is set, and the geometry is only cached while the view is observed and attached. A
+ * target can have one observer at a time.
+ * @param observer the observer, null to stop observing and remove the view's listeners
+ * @return true if the view is observed, false if the observer was removed or the view doesn't exist
+ */
+public boolean setGeometryObserver(GeometryObserver observer) {
+	if (mObservedView != null) {
+		mObservedView.removeOnLayoutChangeListener(mGeometryListener);
+		mObservedView.removeOnAttachStateChangeListener(mGeometryListener);
+		mGeometryListener.removeTreeListeners();
+		mObservedView = null;
+	}
+	mObserver = null;
+	invalidate();
+
+	if (observer == null || getView() == null) {
+		return false;
+	}
+
+	mObserver = observer;
+	mObservedView = mView;
+	mObservedView.addOnLayoutChangeListener(mGeometryListener);
+	mObservedView.addOnAttachStateChangeListener(mGeometryListener);
+	if (mObservedView.isAttachedToWindow()) {
+		mGeometryListener.addTreeListeners(mObservedView);
+	}
+	return true;
+}
+
+/**
+ * Stop observing the view and forget the activity of an id target. Call this when the target isn't
+ * used anymore. The target still works afterwards.
+ */
+public void release() {
+	mActivity = null;
+	setGeometryObserver(null);
+}
+
+/**
+ * @return the targeted view, null if it's targeted by id and doesn't exist yet
+ */
+public View getView() {
+	resolveView();
+	return mView;
+}
+
+/**
+ * Mark the cached geometry as stale. While the view is observed the geometry is refreshed
+ * automatically when the view's layout or scroll position changes. Call this if the view is moved
+ * some other way, e.g. by a translation.
+ */
+public void invalidate() {
+	mGeometryValid = false;
+}
+
+private void updateGeometry() {
+	if (!mGeometryValid) {
+		if (getView() == null) {
+			mPoint.set(0, 0);
+			mRadiusSq = 0;
+			return;
+		}
+
+		mView.getLocationOnScreen(mLocation);
+		int width = mView.getWidth();
+		int height = mView.getHeight();
+		mPoint.set(mLocation[0] + width / 2, mLocation[1] + height / 2);
+
+		double halfWidth = width * 0.5;
+		double halfHeight = height * 0.5;
+		mRadiusSq = (int) (halfWidth * halfWidth + halfHeight * halfHeight);
+
+		// Only cache while observed and attached, we don't get any geometry updates otherwise
+		mGeometryValid = mObservedView == mView && mView.isAttachedToWindow();
+	}
 }
 
 @Override
 public Point getPoint() {
-	int[] location = new int[2];
-
-	mView.getLocationOnScreen(location);
-	int x = location[0] + mView.getWidth() / 2;
-	int y = location[1] + mView.getHeight() / 2;
+	updateGeometry();
+	return new Point(mPoint);
+}
 
-	return new Point(x, y);
+@Override
+public void getPoint(Point out) {
+	updateGeometry();
+	out.set(mPoint.x, mPoint.y);
 }
 
 @Override
@@ -35,8 +148,91 @@ public int getRadius() {
 
 @Override
 public int getRadiusSq() {
-	double width = mView.getWidth() * 0.5;
-	double height = mView.getHeight() * 0.5;
-	return (int) (width * width + height * height);
+	updateGeometry();
+	return mRadiusSq;
+}
+
+/**
+ * Listens to events that may change the geometry of an observed target
+ */
+public interface GeometryObserver {
+	/**
+	 * Called when the view's layout, or the layout or scroll position of its window changed, i.e. the
+	 * view may have moved or changed size. The cached geometry has been invalidated.
+	 * @param scrolled true if the window scrolled
+	 */
+	void onGeometryChanged(boolean scrolled);
+
+	/**
+	 * Called before the view's window draws a frame
+	 */
+	void onPreDraw();
+}
+
+/**
+ * Invalidates the cached geometry whenever the view's layout or scroll position changes and forwards
+ * the events to the observer
+ */
+private class GeometryListener implements View.OnLayoutChangeListener, View.OnAttachStateChangeListener,
+		ViewTreeObserver.OnScrollChangedListener, ViewTreeObserver.OnGlobalLayoutListener, ViewTreeObserver.OnPreDrawListener {
+	@Override
+	public void onLayoutChange(View v, int left, int top, int right, int bottom, int oldLeft, int oldTop, int oldRight, int oldBottom) {
+		onChanged(false);
+	}
+
+	@Override
+	public void onScrollChanged() {
+		onChanged(true);
+	}
+
+	@Override
+	public void onGlobalLayout() {
+		// A parent may have moved without our own bounds changing
+		onChanged(false);
+	}
+
+	@Override
+	public boolean onPreDraw() {
+		if (mObserver != null) {
+			mObserver.onPreDraw();
+		}
+		return true;
+	}
+
+	@Override
+	public void onViewAttachedToWindow(View v) {
+		addTreeListeners(v);
+		onChanged(false);
+	}
+
+	@Override
+	public void onViewDetachedFromWindow(View v) {
+		removeTreeListeners();
+		invalidate();
+	}
+
+	private void onChanged(boolean scrolled) {
+		invalidate();
+		if (mObserver != null) {
+			mObserver.onGeometryChanged(scrolled);
+		}
+	}
+
+	private void addTreeListeners(View v) {
+		removeTreeListeners();
+		mViewTreeObserver = v.getViewTreeObserver();
+		mViewTreeObserver.addOnScrollChangedListener(this);
+		mViewTreeObserver.addOnGlobalLayoutListener(this);
+		mViewTreeObserver.addOnPreDrawListener(this);
+	}
+
+	private void removeTreeListeners() {
+		if (mViewTreeObserver != null && mViewTreeObserver.isAlive()) {
+			mViewTreeObserver.removeOnScrollChangedListener(this);
+			mViewTreeObserver.removeOnGlobalLayoutListener(this);
+			mViewTreeObserver.removeOnPreDrawListener(this);
+		}
+		mViewTreeObserver = null;
+	}
 }
 }
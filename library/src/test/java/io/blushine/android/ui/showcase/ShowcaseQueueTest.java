@@ -0,0 +1,160 @@
+package io.blushine.android.ui.showcase;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ShowcaseQueueTest {
+private static final long NOW = 1000;
+private ShowcaseQueue<String> mQueue;
+private List<String> mExpired;
+
+@Before
+public void setUp() {
+	mQueue = new ShowcaseQueue<>();
+	mExpired = new ArrayList<>();
+}
+
+@Test
+public void pollsHigherPriorityFirst() {
+	mQueue.add("low", null, 0, ShowcaseQueue.NO_DEADLINE);
+	mQueue.add("high", null, 10, ShowcaseQueue.NO_DEADLINE);
+	mQueue.add("middle", null, 5, ShowcaseQueue.NO_DEADLINE);
+
+	assertEquals("high", poll());
+	assertEquals("middle", poll());
+	assertEquals("low", poll());
+	assertNull(poll());
+}
+
+@Test
+public void pollsEqualPrioritiesInAddedOrder() {
+	for (int i = 0; i < 100; i++) {
+		mQueue.add("showcase" + i, null, i % 3, ShowcaseQueue.NO_DEADLINE);
+	}
+
+	for (int priority = 2; priority >= 0; priority--) {
+		for (int i = priority; i < 100; i += 3) {
+			assertEquals("showcase" + i, poll());
+		}
+	}
+	assertNull(poll());
+}
+
+@Test
+public void mergesShowcasesWithTheSameId() {
+	ShowcaseQueue.Entry<String> first = mQueue.add("first", "id", 0, NOW);
+	mQueue.add("other", null, 5, ShowcaseQueue.NO_DEADLINE);
+	ShowcaseQueue.Entry<String> merged = mQueue.add("second", "id", 10, NOW + 100);
+
+	// The queued showcase is kept with the higher priority and later deadline
+	assertSame(first, merged);
+	assertEquals("first", merged.getItem());
+	assertEquals("first", mQueue.poll(NOW + 50, mExpired));
+	assertEquals("other", poll());
+	assertNull(poll());
+	assertTrue(mExpired.isEmpty());
+}
+
+@Test
+public void addsShowcaseWithTheSameIdAfterPoll() {
+	mQueue.add("first", "id", 0, ShowcaseQueue.NO_DEADLINE);
+	assertEquals("first", poll());
+
+	ShowcaseQueue.Entry<String> entry = mQueue.add("second", "id", 0, ShowcaseQueue.NO_DEADLINE);
+	assertEquals("second", entry.getItem());
+	assertEquals("second", poll());
+}
+
+@Test
+public void doesNotMergeShowcasesWithoutId() {
+	ShowcaseQueue.Entry<String> first = mQueue.add("showcase", null, 0, ShowcaseQueue.NO_DEADLINE);
+	ShowcaseQueue.Entry<String> second = mQueue.add("showcase", null, 0, ShowcaseQueue.NO_DEADLINE);
+
+	assertTrue(first != second);
+	assertEquals("showcase", poll());
+	assertEquals("showcase", poll());
+	assertNull(poll());
+}
+
+@Test
+public void skipsCancelledShowcases() {
+	ShowcaseQueue.Entry<String> cancelled = mQueue.add("cancelled", "id", 10, ShowcaseQueue.NO_DEADLINE);
+	mQueue.add("kept", null, 0, ShowcaseQueue.NO_DEADLINE);
+
+	assertTrue(mQueue.cancel(cancelled));
+	assertFalse(mQueue.cancel(cancelled));
+	assertEquals("kept", poll());
+	assertNull(poll());
+
+	// The id can be queued again
+	assertEquals("again", mQueue.add("again", "id", 0, ShowcaseQueue.NO_DEADLINE).getItem());
+}
+
+@Test
+public void keepsOrderWhenCancellingManyShowcases() {
+	List<ShowcaseQueue.Entry<String>> entries = new ArrayList<>();
+	for (int i = 0; i < 100; i++) {
+		entries.add(mQueue.add("showcase" + i, null, i % 4, ShowcaseQueue.NO_DEADLINE));
+	}
+	// Cancelling more than half compacts the heap
+	for (int i = 0; i < 100; i++) {
+		if (i % 5 != 0) {
+			mQueue.cancel(entries.get(i));
+		}
+	}
+
+	for (int priority = 3; priority >= 0; priority--) {
+		for (int i = 0; i < 100; i += 5) {
+			if (i % 4 == priority) {
+				assertEquals("showcase" + i, poll());
+			}
+		}
+	}
+	assertNull(poll());
+}
+
+@Test
+public void dropsExpiredShowcases() {
+	mQueue.add("expired", null, 10, NOW - 1);
+	mQueue.add("onTime", null, 5, NOW);
+	mQueue.add("never", null, 0, ShowcaseQueue.NO_DEADLINE);
+
+	assertEquals("onTime", poll());
+	assertEquals(1, mExpired.size());
+	assertEquals("expired", mExpired.get(0));
+	assertEquals("never", poll());
+	assertNull(poll());
+}
+
+@Test
+public void dropsExpiredShowcasesWithoutList() {
+	mQueue.add("expired", null, 0, NOW - 1);
+
+	assertNull(mQueue.poll(NOW, null));
+}
+
+@Test
+public void clearRemovesAllShowcases() {
+	ShowcaseQueue.Entry<String> entry = mQueue.add("first", "id", 0, ShowcaseQueue.NO_DEADLINE);
+	mQueue.add("second", null, 0, ShowcaseQueue.NO_DEADLINE);
+
+	mQueue.clear();
+
+	assertNull(poll());
+	assertFalse(mQueue.cancel(entry));
+	assertEquals("third", mQueue.add("third", "id", 0, ShowcaseQueue.NO_DEADLINE).getItem());
+}
+
+private String poll() {
+	return mQueue.poll(NOW, mExpired);
+}
+}